@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.benchmark;
+
+import com.lixiaocong.downloader.DownloadTask;
+import com.lixiaocong.downloader.DownloaderException;
+import com.lixiaocong.downloader.transmission4j.TransmissionClient;
+import com.lixiaocong.downloader.transmission4j.TransmissionClientConfig;
+import com.lixiaocong.downloader.transmission4j.fake.FakeTransmissionServer;
+import com.lixiaocong.downloader.transmission4j.request.SessionStatsRequest;
+import com.lixiaocong.downloader.transmission4j.request.TorrentField;
+import com.lixiaocong.downloader.transmission4j.response.SessionStatsResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end TransmissionClient calls against a FakeTransmissionServer
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+@Threads(4)
+@State(Scope.Benchmark)
+public class ClientRoundTripBenchmark {
+    @Param({"10", "1000"})
+    private int torrents;
+
+    private FakeTransmissionServer server;
+    private TransmissionClient client;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        server = new FakeTransmissionServer("benchmark", "benchmark");
+        server.generate(torrents, 10);
+        TransmissionClientConfig config = new TransmissionClientConfig();
+        config.setCoalescing(false);    //measure every round trip
+        client = new TransmissionClient("benchmark", "benchmark", server.getUri(), config);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public List<DownloadTask> get() throws DownloaderException {
+        return client.get();
+    }
+
+    @Benchmark
+    public List<DownloadTask> getProgress() throws DownloaderException {
+        return client.get(TorrentField.PROGRESS);
+    }
+
+    @Benchmark
+    public SessionStatsResponse sessionStats() throws DownloaderException {
+        return client.execute(new SessionStatsRequest(), SessionStatsResponse.class);
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.benchmark;
+
+import com.lixiaocong.downloader.transmission4j.exception.JsonException;
+import com.lixiaocong.downloader.transmission4j.request.SessionGetRequest;
+import com.lixiaocong.downloader.transmission4j.request.SessionSetRequest;
+import com.lixiaocong.downloader.transmission4j.request.SessionStatsRequest;
+import com.lixiaocong.downloader.transmission4j.request.TorrentField;
+import com.lixiaocong.downloader.transmission4j.request.TransmissionRequest;
+import com.lixiaocong.downloader.transmission4j.request.TransmissionRequestFactory;
+import com.lixiaocong.downloader.transmission4j.utils.JsonUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JsonUtil serialization of every request type
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestSerializationBenchmark {
+    private TransmissionRequest start;
+    private TransmissionRequest stop;
+    private TransmissionRequest add;
+    private TransmissionRequest remove;
+    private TransmissionRequest get;
+    private TransmissionRequest getProgress;
+    private TransmissionRequest sessionGet;
+    private TransmissionRequest sessionSet;
+    private TransmissionRequest sessionStats;
+
+    @Setup
+    public void setup() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 1; i <= 100; i++)
+            ids.add(i);
+        start = TransmissionRequestFactory.getStartRequest(ids);
+        stop = TransmissionRequestFactory.getStopRequest(ids);
+        add = TransmissionRequestFactory.getAddRequest(new String(new char[64 * 1024]).replace('\0', 'A'));
+        remove = TransmissionRequestFactory.getRemoveRequest(ids);
+        get = TransmissionRequestFactory.getGetRequest(ids);
+        getProgress = TransmissionRequestFactory.getGetRequest(ids, TorrentField.PROGRESS);
+        sessionGet = new SessionGetRequest();
+        SessionSetRequest set = new SessionSetRequest();
+        set.setAltSpeedDown(1024);
+        set.setAltSpeedEnabled(true);
+        sessionSet = set;
+        sessionStats = new SessionStatsRequest();
+    }
+
+    @Benchmark
+    public String torrentStart() throws JsonException {
+        return JsonUtil.getJson(start);
+    }
+
+    @Benchmark
+    public String torrentStop() throws JsonException {
+        return JsonUtil.getJson(stop);
+    }
+
+    @Benchmark
+    public String torrentAdd() throws JsonException {
+        return JsonUtil.getJson(add);
+    }
+
+    @Benchmark
+    public String torrentRemove() throws JsonException {
+        return JsonUtil.getJson(remove);
+    }
+
+    @Benchmark
+    public String torrentGet() throws JsonException {
+        return JsonUtil.getJson(get);
+    }
+
+    @Benchmark
+    public String torrentGetProgress() throws JsonException {
+        return JsonUtil.getJson(getProgress);
+    }
+
+    @Benchmark
+    public String sessionGet() throws JsonException {
+        return JsonUtil.getJson(sessionGet);
+    }
+
+    @Benchmark
+    public String sessionSet() throws JsonException {
+        return JsonUtil.getJson(sessionSet);
+    }
+
+    @Benchmark
+    public String sessionStats() throws JsonException {
+        return JsonUtil.getJson(sessionStats);
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.benchmark;
+
+import com.lixiaocong.downloader.DownloadTask;
+import com.lixiaocong.downloader.transmission4j.exception.JsonException;
+import com.lixiaocong.downloader.transmission4j.response.Torrent;
+import com.lixiaocong.downloader.transmission4j.response.TorrentGetResponse;
+import com.lixiaocong.downloader.transmission4j.utils.JsonUtil;
+import com.lixiaocong.downloader.transmission4j.utils.TaskConvert;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TaskConvert throughput on already parsed torrents, and bytes to DownloadTask through Torrent or bound directly
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskConvertBenchmark {
+    @Param({"1000"})
+    private int torrents;
+
+    @Param({"0", "200"})
+    private int files;
+
+    private List<Torrent> parsed;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() throws Exception {
+        bytes = TorrentFixtures.torrentGetResponse(torrents, files).getBytes(StandardCharsets.UTF_8);
+        parsed = JsonUtil.getObject(TorrentGetResponse.class, new ByteArrayInputStream(bytes)).getArguments().getTorrents();
+    }
+
+    @Benchmark
+    public List<DownloadTask> convert() {
+        return TaskConvert.convertToDownloadTask(parsed);
+    }
+
+    @Benchmark
+    public List<DownloadTask> parseAndConvert() throws JsonException {
+        return TaskConvert.convertToDownloadTask(JsonUtil.getObject(TorrentGetResponse.class, new ByteArrayInputStream(bytes)).getArguments().getTorrents());
+    }
+
+    @Benchmark
+    public String bindDirect(Blackhole blackhole) throws JsonException {
+        return JsonUtil.readDownloadTasks(new ByteArrayInputStream(bytes), blackhole::consume);
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.benchmark;
+
+/**
+ * Synthetic transmission rpc responses used by the benchmarks
+ */
+class TorrentFixtures {
+    /**
+     * a torrent-get response with every field TorrentGetRequest asks for by default
+     */
+    static String torrentGetResponse(int torrents, int files) {
+        StringBuilder builder = new StringBuilder(torrents * (600 + files * 80));
+        builder.append("{\"arguments\":{\"torrents\":[");
+        for (int i = 0; i < torrents; i++) {
+            if (i > 0)
+                builder.append(',');
+            appendTorrent(builder, i + 1, files);
+        }
+        builder.append("]},\"result\":\"success\"}");
+        return builder.toString();
+    }
+
+    static void appendTorrent(StringBuilder builder, int id, int files) {
+        long totalSize = 1024L * 1024 * (id % 4096 + 1);
+        double percentDone = (id % 100) / 100.0;
+        builder.append("{\"activityDate\":1490000000,\"addedDate\":1480000000,\"bandwidthPriority\":0")
+                .append(",\"creator\":\"transmission4j\",\"dateCreated\":1470000000,\"desiredAvailable\":0")
+                .append(",\"doneDate\":0,\"downloadDir\":\"/var/lib/transmission/downloads\"")
+                .append(",\"downloadedEver\":").append((long) (totalSize * percentDone))
+                .append(",\"files\":[");
+        for (int f = 0; f < files; f++) {
+            if (f > 0)
+                builder.append(',');
+            builder.append("{\"bytesCompleted\":").append(f * 1024L)
+                    .append(",\"length\":").append(totalSize / files)
+                    .append(",\"name\":\"torrent-").append(id).append("/file-").append(f).append(".bin\"}");
+        }
+        builder.append("],\"id\":").append(id)
+                .append(",\"isFinished\":false,\"isStalled\":false")
+                .append(",\"magnetLink\":\"magnet:?xt=urn:btih:").append(String.format("%040x", id)).append('"')
+                .append(",\"name\":\"torrent-").append(id).append('"')
+                .append(",\"percentDone\":").append(percentDone)
+                .append(",\"rateDownload\":").append(id * 17L)
+                .append(",\"rateUpload\":").append(id * 3L)
+                .append(",\"secondsDownloading\":3600,\"secondsSeeding\":7200")
+                .append(",\"status\":").append(id % 7)
+                .append(",\"totalSize\":").append(totalSize)
+                .append(",\"uploadRatio\":0.5}");
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Byte counters of the responses read by one client
+ */
+public class CompressionStats {
+    private final AtomicLong compressedResponses = new AtomicLong();
+    private final AtomicLong compressedBytes = new AtomicLong();     //bytes on the wire of compressed responses
+    private final AtomicLong decompressedBytes = new AtomicLong();   //the same responses after decompression
+    private final AtomicLong rawResponses = new AtomicLong();
+    private final AtomicLong rawBytes = new AtomicLong();
+
+    AtomicLong compressedBytesCounter() {
+        return compressedBytes;
+    }
+
+    AtomicLong decompressedBytesCounter() {
+        return decompressedBytes;
+    }
+
+    AtomicLong rawBytesCounter() {
+        return rawBytes;
+    }
+
+    void compressedResponse() {
+        compressedResponses.incrementAndGet();
+    }
+
+    void rawResponse() {
+        rawResponses.incrementAndGet();
+    }
+
+    public long getCompressedResponses() {
+        return compressedResponses.get();
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes.get();
+    }
+
+    public long getDecompressedBytes() {
+        return decompressedBytes.get();
+    }
+
+    public long getRawResponses() {
+        return rawResponses.get();
+    }
+
+    public long getRawBytes() {
+        return rawBytes.get();
+    }
+
+    /**
+     * bytes on the wire of all responses
+     */
+    public long getWireBytes() {
+        return compressedBytes.get() + rawBytes.get();
+    }
+
+    /**
+     * compressed size divided by decompressed size, 1 if nothing was compressed
+     */
+    public double getCompressionRatio() {
+        long decompressed = decompressedBytes.get();
+        return decompressed == 0 ? 1 : (double) compressedBytes.get() / decompressed;
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j;
+
+/**
+ * Point in time all rpc calls of the current thread must finish by
+ * timeouts of every attempt and the backoff of retries are cut to what is left, nested deadlines never extend an outer one
+ * <pre>
+ * try (Deadline deadline = Deadline.after(5000)) {
+ *     client.get();
+ *     client.start("1");
+ * }
+ * </pre>
+ */
+public final class Deadline implements AutoCloseable {
+    private static final ThreadLocal<Deadline> current = new ThreadLocal<>();
+
+    private final long expiresAt;   //System.nanoTime based
+    private final Deadline previous;
+
+    private Deadline(long expiresAt, Deadline previous) {
+        this.expiresAt = expiresAt;
+        this.previous = previous;
+    }
+
+    /**
+     * start a deadline in millis for the current thread, close it to restore the enclosing one
+     */
+    public static Deadline after(long millis) {
+        Deadline outer = current.get();
+        long expiresAt = System.nanoTime() + millis * 1000000;
+        if (outer != null && outer.expiresAt - expiresAt < 0)
+            expiresAt = outer.expiresAt;
+        Deadline deadline = new Deadline(expiresAt, outer);
+        current.set(deadline);
+        return deadline;
+    }
+
+    /**
+     * the deadline of the current thread, null if there is none
+     */
+    public static Deadline current() {
+        return current.get();
+    }
+
+    public long remainingMillis() {
+        return Math.max((expiresAt - System.nanoTime()) / 1000000, 0);
+    }
+
+    public boolean isExpired() {
+        return expiresAt - System.nanoTime() <= 0;
+    }
+
+    @Override
+    public void close() {
+        if (previous == null)
+            current.remove();
+        else
+            current.set(previous);
+    }
+}
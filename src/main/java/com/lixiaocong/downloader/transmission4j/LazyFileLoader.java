@@ -0,0 +1,184 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j;
+
+import com.lixiaocong.downloader.DownloadFile;
+import com.lixiaocong.downloader.DownloaderException;
+import com.lixiaocong.downloader.transmission4j.request.TorrentField;
+import com.lixiaocong.downloader.transmission4j.request.TransmissionRequestFactory;
+import com.lixiaocong.downloader.transmission4j.response.Torrent;
+import com.lixiaocong.downloader.transmission4j.response.TorrentGetResponse;
+import com.lixiaocong.downloader.transmission4j.utils.TaskConvert;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Loads the file lists of the tasks of one TransmissionClient.getLazy call on first access
+ * touching one list loads it together with the next lists of the same call, in response order, in one torrent-get
+ * the torrent-get is sent without holding a lock, threads touching a list of a batch in flight wait for that batch
+ */
+class LazyFileLoader {
+    private static Log log = LogFactory.getLog(LazyFileLoader.class.getName());
+    private static final Set<TorrentField> FIELDS = Collections.unmodifiableSet(EnumSet.of(TorrentField.ID, TorrentField.FILES));
+
+    private final TransmissionClient client;
+    private final int batchSize;
+    private final List<LazyFileList> lists = new ArrayList<>();     //in the order of the response
+
+    LazyFileLoader(TransmissionClient client, int batchSize) {
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("batchSize must be positive");
+        this.client = client;
+        this.batchSize = batchSize;
+    }
+
+    synchronized List<DownloadFile> create(long id) {
+        LazyFileList list = new LazyFileList(id, lists.size());
+        lists.add(list);
+        return list;
+    }
+
+    private void load(LazyFileList first) {
+        List<LazyFileList> batch = null;
+        CompletableFuture<Void> loading;
+        synchronized (this) {
+            if (first.files != null)
+                return;
+            loading = first.loading;
+            if (loading == null) {
+                loading = new CompletableFuture<>();
+                batch = new ArrayList<>(batchSize);
+                for (int i = first.index; i < lists.size() && batch.size() < batchSize; i++) {
+                    LazyFileList list = lists.get(i);
+                    if (list.files == null && list.loading == null) {
+                        list.loading = loading;
+                        batch.add(list);
+                    }
+                }
+            }
+        }
+
+        if (batch == null) {
+            await(first, loading);
+            return;
+        }
+
+        List<Integer> ids = new ArrayList<>(batch.size());
+        for (LazyFileList list : batch)
+            ids.add((int) list.id);
+        boolean loaded = false;
+        IllegalStateException failure = null;
+        try {
+            List<Torrent> torrents = client.execute(TransmissionRequestFactory.getGetRequest(ids, FIELDS), TorrentGetResponse.class).getArguments().getTorrents();
+            Map<Long, LazyFileList> byId = new HashMap<>();
+            for (LazyFileList list : batch)
+                byId.put(list.id, list);
+            synchronized (this) {
+                for (Torrent torrent : torrents) {
+                    LazyFileList list = byId.remove(torrent.getId());
+                    if (list != null)
+                        list.files = TaskConvert.covertToDownloadFile(torrent.getFiles());
+                }
+                //torrents removed from the daemon in the meantime have no files
+                for (LazyFileList list : byId.values())
+                    list.files = Collections.emptyList();
+            }
+            loaded = true;
+        } catch (DownloaderException | RuntimeException e) {
+            log.warn("load files of " + ids + " exception:", e);
+            failure = new IllegalStateException("load files of torrent " + first.id + " failed: " + e.getMessage());
+            throw failure;
+        } finally {
+            //whatever went wrong, errors included, the lists are loadable again and the next access tries again
+            synchronized (this) {
+                for (LazyFileList list : batch)
+                    list.loading = null;
+            }
+            if (loaded)
+                loading.complete(null);
+            else
+                loading.completeExceptionally(failure != null ? failure : new IllegalStateException("load files of torrent " + first.id + " failed"));
+        }
+    }
+
+    private static void await(LazyFileList list, CompletableFuture<Void> loading) {
+        try {
+            loading.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while loading files of torrent " + list.id);
+        } catch (ExecutionException e) {
+            throw (IllegalStateException) e.getCause();
+        }
+    }
+
+    private class LazyFileList extends AbstractList<DownloadFile> {
+        private final long id;
+        private final int index;
+        private volatile List<DownloadFile> files;
+        private CompletableFuture<Void> loading;    //the batch in flight, guarded by the loader
+
+        private LazyFileList(long id, int index) {
+            this.id = id;
+            this.index = index;
+        }
+
+        private List<DownloadFile> files() {
+            List<DownloadFile> loaded = files;
+            while (loaded == null) {
+                load(this);
+                loaded = files;
+            }
+            return loaded;
+        }
+
+        @Override
+        public DownloadFile get(int index) {
+            return files().get(index);
+        }
+
+        @Override
+        public int size() {
+            return files().size();
+        }
+    }
+}
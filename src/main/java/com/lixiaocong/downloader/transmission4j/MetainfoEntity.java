@@ -0,0 +1,238 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j;
+
+import com.lixiaocong.downloader.transmission4j.exception.JsonException;
+import com.lixiaocong.downloader.transmission4j.request.TransmissionRequest;
+import com.lixiaocong.downloader.transmission4j.utils.JsonUtil;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+
+/**
+ * torrent-add body whose metainfo is base64 encoded from a file or stream while it is written to the connection
+ * the json around the metainfo comes from the request itself, the .torrent is never held as a String
+ */
+class MetainfoEntity extends AbstractHttpEntity {
+    static final String PLACEHOLDER = "@metainfo@";
+    private static final long MAP_THRESHOLD = 1024 * 1024;     //files from this size on are memory mapped
+    private static final int CHUNK = 48 * 1024;                //the encoder keeps partial groups of 3 bytes between writes
+
+    private final byte[] prefix;
+    private final byte[] suffix;
+    private final Path path;
+    private final long size;
+    private final InputStream in;
+
+    private MetainfoEntity(TransmissionRequest request, Path path, long size, InputStream in) {
+        String json;
+        try {
+            json = JsonUtil.getJson(request);
+        } catch (JsonException e) {
+            throw new RuntimeException(e.getMessage());
+        }
+        int at = json.indexOf(PLACEHOLDER);
+        if (at < 0)
+            throw new IllegalArgumentException("request has no metainfo placeholder");
+        this.prefix = json.substring(0, at).getBytes(StandardCharsets.UTF_8);
+        this.suffix = json.substring(at + PLACEHOLDER.length()).getBytes(StandardCharsets.UTF_8);
+        this.path = path;
+        this.size = size;
+        this.in = in;
+        setContentType(ContentType.APPLICATION_JSON.toString());
+    }
+
+    /**
+     * request must carry PLACEHOLDER as its metainfo, the entity can be sent again
+     */
+    static MetainfoEntity of(TransmissionRequest request, Path path) throws IOException {
+        return new MetainfoEntity(request, path, Files.size(path), null);
+    }
+
+    /**
+     * the stream is read once, the entity can not be sent again
+     */
+    static MetainfoEntity of(TransmissionRequest request, InputStream in) {
+        return new MetainfoEntity(request, null, -1, in);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return path != null;
+    }
+
+    @Override
+    public long getContentLength() {
+        if (path == null)
+            return -1;
+        return prefix.length + 4 * ((size + 2) / 3) + suffix.length;
+    }
+
+    /**
+     * the same body writeTo sends, for whatever buffers or logs the entity, the stream of a Path entity is new on every call
+     */
+    @Override
+    public InputStream getContent() throws IOException {
+        InputStream metainfo = path != null ? Files.newInputStream(path) : in;
+        return new SequenceInputStream(Collections.enumeration(Arrays.asList(new ByteArrayInputStream(prefix), new Base64InputStream(metainfo), new ByteArrayInputStream(suffix))));
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return path == null;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(prefix);
+        //closing the encoder writes the padding, the connection itself must stay open
+        try (OutputStream base64 = Base64.getEncoder().wrap(new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        })) {
+            if (path != null)
+                writeFile(base64);
+            else
+                writeStream(base64);
+        }
+        out.write(suffix);
+        out.flush();
+    }
+
+    private void writeFile(OutputStream base64) throws IOException {
+        byte[] chunk = new byte[CHUNK];
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length >= MAP_THRESHOLD) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+                while (mapped.hasRemaining()) {
+                    int n = Math.min(chunk.length, mapped.remaining());
+                    mapped.get(chunk, 0, n);
+                    base64.write(chunk, 0, n);
+                }
+            } else {
+                ByteBuffer buffer = ByteBuffer.wrap(chunk);
+                int n;
+                while ((n = channel.read(buffer)) != -1) {
+                    base64.write(chunk, 0, n);
+                    buffer.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * base64 of in, encoded CHUNK bytes at a time so only the last group gets padding
+     */
+    private static class Base64InputStream extends InputStream {
+        private final InputStream in;
+        private final byte[] chunk = new byte[CHUNK];
+        private byte[] encoded = new byte[0];
+        private int position;
+        private boolean eof;
+
+        private Base64InputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == encoded.length && !fill())
+                return -1;
+            return encoded[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0)
+                return 0;
+            if (position == encoded.length && !fill())
+                return -1;
+            int n = Math.min(len, encoded.length - position);
+            System.arraycopy(encoded, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        private boolean fill() throws IOException {
+            int length = 0;
+            while (!eof && length < chunk.length) {
+                int n = in.read(chunk, length, chunk.length - length);
+                if (n == -1)
+                    eof = true;
+                else
+                    length += n;
+            }
+            if (length == 0)
+                return false;
+            encoded = Base64.getEncoder().encode(length == chunk.length ? chunk : Arrays.copyOf(chunk, length));
+            position = 0;
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private void writeStream(OutputStream base64) throws IOException {
+        byte[] chunk = new byte[CHUNK];
+        try (InputStream content = in) {
+            int n;
+            while ((n = content.read(chunk)) != -1)
+                base64.write(chunk, 0, n);
+        }
+    }
+}
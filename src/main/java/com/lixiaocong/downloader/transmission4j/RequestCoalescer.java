@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j;
+
+import com.lixiaocong.downloader.DownloaderException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Lets concurrent identical read requests share one round trip, optionally reusing the result for ttl milliseconds
+ * a caller with a Deadline never leads a shared call, it only joins one in flight and waits no longer than its deadline
+ */
+class RequestCoalescer {
+    interface Call<T> {
+        T call() throws DownloaderException;
+    }
+
+    private static class Entry {
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        volatile long expires = Long.MAX_VALUE;     //in flight until the call finishes
+    }
+
+    private final long ttl;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile long nextSweep;
+
+    RequestCoalescer(long ttl) {
+        this.ttl = ttl;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T execute(String key, Call<T> call) throws DownloaderException {
+        if (ttl > 0)
+            sweep();
+        //the timeouts clipped to a deadline and its deadline errors must not reach callers without one
+        Deadline deadline = Deadline.current();
+        while (deadline != null) {
+            Entry existing = entries.get(key);
+            if (existing == null)
+                return call.call();
+            if (existing.expires <= System.currentTimeMillis()) {
+                entries.remove(key, existing);
+                continue;
+            }
+            return (T) await(existing, deadline);
+        }
+
+        while (true) {
+            Entry entry = new Entry();
+            Entry existing = entries.putIfAbsent(key, entry);
+            if (existing != null) {
+                if (existing.expires <= System.currentTimeMillis()) {
+                    entries.remove(key, existing);
+                    continue;
+                }
+                return (T) await(existing, null);
+            }
+
+            T result;
+            try {
+                result = call.call();
+            } catch (Throwable e) {
+                //failures are never cached, the next caller tries again, errors too or the waiters would hang
+                entries.remove(key, entry);
+                entry.future.completeExceptionally(e);
+                throw e;
+            }
+            //without ttl the entry is gone before waiters wake up, so later callers never see this result
+            if (ttl > 0)
+                entry.expires = System.currentTimeMillis() + ttl;
+            else
+                entries.remove(key, entry);
+            entry.future.complete(result);
+            return result;
+        }
+    }
+
+    /**
+     * drop expired results at most once per ttl, keys that are never asked for again would stay otherwise
+     */
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        if (now < nextSweep)
+            return;
+        nextSweep = now + ttl;
+        entries.values().removeIf(entry -> entry.expires <= now);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private Object await(Entry entry, Deadline deadline) throws DownloaderException {
+        try {
+            if (deadline == null)
+                return entry.future.get();
+            return entry.future.get(Math.max(deadline.remainingMillis(), 0), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new DownloaderException("deadline exceeded while waiting for a coalesced request");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DownloaderException("interrupted while waiting for a coalesced request");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DownloaderException)
+                throw (DownloaderException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new DownloaderException(cause.getMessage());
+        }
+    }
+}
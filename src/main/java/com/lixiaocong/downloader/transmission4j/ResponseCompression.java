@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.client.entity.DeflateDecompressingEntity;
+import org.apache.http.client.entity.GzipDecompressingEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asks transmission for gzip or deflate responses and decodes them, counting the bytes before and after
+ * used instead of the built in content compression of HttpClient so that the wire size can be measured
+ */
+class ResponseCompression implements HttpRequestInterceptor, HttpResponseInterceptor {
+    private final CompressionStats stats;
+    private final boolean enabled;
+
+    ResponseCompression(CompressionStats stats, boolean enabled) {
+        this.stats = stats;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void process(HttpRequest request, HttpContext context) {
+        if (enabled && !request.containsHeader(HttpHeaders.ACCEPT_ENCODING))
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip,deflate");
+    }
+
+    @Override
+    public void process(HttpResponse response, HttpContext context) {
+        HttpEntity entity = response.getEntity();
+        if (entity == null)
+            return;
+
+        Header encoding = entity.getContentEncoding();
+        String codec = encoding == null ? "identity" : encoding.getValue().toLowerCase(Locale.ROOT).trim();
+        if (enabled && (codec.equals("gzip") || codec.equals("x-gzip"))) {
+            stats.compressedResponse();
+            decoded(response, new GzipDecompressingEntity(new CountingEntity(entity, stats.compressedBytesCounter())));
+        } else if (enabled && codec.equals("deflate")) {
+            stats.compressedResponse();
+            decoded(response, new DeflateDecompressingEntity(new CountingEntity(entity, stats.compressedBytesCounter())));
+        } else {
+            stats.rawResponse();
+            response.setEntity(new CountingEntity(entity, stats.rawBytesCounter()));
+        }
+    }
+
+    private void decoded(HttpResponse response, HttpEntity decompressed) {
+        response.setEntity(new CountingEntity(decompressed, stats.decompressedBytesCounter()));
+        response.removeHeaders(HttpHeaders.CONTENT_LENGTH);
+        response.removeHeaders(HttpHeaders.CONTENT_ENCODING);
+        response.removeHeaders(HttpHeaders.CONTENT_MD5);
+    }
+
+    private static class CountingEntity extends HttpEntityWrapper {
+        private final AtomicLong counter;
+
+        CountingEntity(HttpEntity entity, AtomicLong counter) {
+            super(entity);
+            this.counter = counter;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            return new FilterInputStream(super.getContent()) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b != -1)
+                        counter.incrementAndGet();
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int n = super.read(b, off, len);
+                    if (n > 0)
+                        counter.addAndGet(n);
+                    return n;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j;
+
+import com.lixiaocong.downloader.transmission4j.request.TransmissionRequestMethod;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries of idempotent rpc methods with exponential backoff and full jitter
+ * only failures before the response body is read are retried: connect errors, timeouts waiting for the response and 5xx
+ */
+public class RetryPolicy {
+    private int maxAttempts = 3;        //first try included
+    private long baseDelay = 100;       //milliseconds, the backoff cap doubles from here on every retry
+    private long maxDelay = 2000;
+    private Set<String> methods = new HashSet<>(Arrays.asList(TransmissionRequestMethod.TORRENT_GET, TransmissionRequestMethod.SESSION_GET, TransmissionRequestMethod.SESSION_STATS));
+
+    public boolean isRetryable(String method) {
+        return maxAttempts > 1 && methods.contains(method);
+    }
+
+    /**
+     * milliseconds to wait before retry number retry, counted from 1, uniformly random up to the capped exponential
+     */
+    public long getDelay(int retry) {
+        long cap = baseDelay << Math.min(retry - 1, 30);
+        if (cap <= 0 || cap > maxDelay)
+            cap = maxDelay;
+        return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        if (maxAttempts < 1)
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        this.maxAttempts = maxAttempts;
+    }
+
+    public long getBaseDelay() {
+        return baseDelay;
+    }
+
+    public void setBaseDelay(long baseDelay) {
+        this.baseDelay = baseDelay;
+    }
+
+    public long getMaxDelay() {
+        return maxDelay;
+    }
+
+    public void setMaxDelay(long maxDelay) {
+        this.maxDelay = maxDelay;
+    }
+
+    public Set<String> getMethods() {
+        return Collections.unmodifiableSet(methods);
+    }
+
+    /**
+     * only add methods that are safe to send twice
+     */
+    public void setMethods(Set<String> methods) {
+        this.methods = new HashSet<>(methods);
+    }
+}
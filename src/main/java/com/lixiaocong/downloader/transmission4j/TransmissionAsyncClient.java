@@ -0,0 +1,302 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j;
+
+import com.lixiaocong.downloader.DownloadTask;
+import com.lixiaocong.downloader.DownloaderException;
+import com.lixiaocong.downloader.transmission4j.exception.JsonException;
+import com.lixiaocong.downloader.transmission4j.metrics.TransmissionMetrics;
+import com.lixiaocong.downloader.transmission4j.request.SessionStatsRequest;
+import com.lixiaocong.downloader.transmission4j.request.TorrentField;
+import com.lixiaocong.downloader.transmission4j.request.TransmissionRequest;
+import com.lixiaocong.downloader.transmission4j.request.TransmissionRequestFactory;
+import com.lixiaocong.downloader.transmission4j.response.SessionStatsResponse;
+import com.lixiaocong.downloader.transmission4j.response.TorrentGetResponse;
+import com.lixiaocong.downloader.transmission4j.response.TransmissionResponse;
+import com.lixiaocong.downloader.transmission4j.utils.JsonUtil;
+import com.lixiaocong.downloader.transmission4j.utils.TaskConvert;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.util.EntityUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Non-blocking transmission client, every call returns at once and completes on the I/O dispatcher threads
+ * ids are transmission torrent ids, null means all torrents
+ * cancelling a returned future aborts its request
+ */
+public class TransmissionAsyncClient implements Closeable {
+    private static Log log = LogFactory.getLog(TransmissionAsyncClient.class.getName());
+    private static final int MAX_RENEGOTIATIONS = 2;
+
+    private String username;
+    private String password;
+    private String uri;
+    private TransmissionSession session;
+    private CompressionStats compressionStats;
+    private ResponseCompression compression;
+
+    private CloseableHttpAsyncClient httpClient;
+    private boolean ownsHttpClient;
+    private Header authHeader;
+    private RequestConfig requestConfig;
+    private Map<String, RequestConfig> methodConfigs = new HashMap<>();    //methods with their own timeout
+    private TransmissionMetrics metrics;
+
+    public TransmissionAsyncClient(String username, String password, String uri) {
+        this(username, password, uri, new TransmissionClientConfig());
+    }
+
+    public TransmissionAsyncClient(String username, String password, String uri, TransmissionClientConfig config) {
+        this(username, password, uri, config, createHttpClient(config), true);
+    }
+
+    /**
+     * a client on the I/O reactor and connection pool of httpClient, so many daemons cost no more threads than one
+     * httpClient comes from createHttpClient, close leaves it open for the other clients on it
+     */
+    public TransmissionAsyncClient(String username, String password, String uri, TransmissionClientConfig config, CloseableHttpAsyncClient httpClient) {
+        this(username, password, uri, config, httpClient, false);
+    }
+
+    private TransmissionAsyncClient(String username, String password, String uri, TransmissionClientConfig config, CloseableHttpAsyncClient httpClient, boolean ownsHttpClient) {
+        log.info("new TransmissionAsyncClient username:" + username + " password:" + password + " uri:" + uri);
+        this.username = username;
+        this.password = password;
+        this.uri = uri;
+        this.session = new TransmissionSession();
+        this.compressionStats = new CompressionStats();
+        this.metrics = config.getMetrics();
+        this.httpClient = httpClient;
+        this.ownsHttpClient = ownsHttpClient;
+
+        requestConfig = RequestConfig.custom().setSocketTimeout(config.getSocketTimeout()).setConnectTimeout(config.getConnectTimeout()).setConnectionRequestTimeout(config.getConnectionRequestTimeout()).build();
+        for (Map.Entry<String, Integer> entry : config.getMethodTimeouts().entrySet())
+            methodConfigs.put(entry.getKey(), RequestConfig.copy(requestConfig).setSocketTimeout(entry.getValue()).build());
+        authHeader = new BasicHeader(HttpHeaders.AUTHORIZATION, String.format("Basic %s", Base64.getEncoder().encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8))));
+        compression = new ResponseCompression(compressionStats, config.isCompression());
+    }
+
+    /**
+     * a started http client sized by the connection limits of config, it carries no state of a daemon
+     * credentials, session id and compression are added to each request by the TransmissionAsyncClient sending it
+     */
+    public static CloseableHttpAsyncClient createHttpClient(TransmissionClientConfig config) {
+        log.info("build async client with maxTotal:" + config.getMaxTotal() + " maxPerRoute:" + config.getMaxPerRoute());
+        CloseableHttpAsyncClient httpClient = HttpAsyncClients.custom()
+                .setMaxConnTotal(config.getMaxTotal())
+                .setMaxConnPerRoute(config.getMaxPerRoute())
+                .build();
+        httpClient.start();
+        return httpClient;
+    }
+
+    public <T extends TransmissionResponse> CompletableFuture<T> execute(TransmissionRequest request, Class<T> responseClass) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        String requestStr;
+        try {
+            requestStr = JsonUtil.getJson(request);
+        } catch (JsonException e) {
+            log.error(e);
+            future.completeExceptionally(new RuntimeException(e.getMessage()));
+            return future;
+        }
+        execute(request.getMethod(), requestStr, responseClass, future, 0);
+        return future;
+    }
+
+    private <T extends TransmissionResponse> void execute(String method, String requestStr, Class<T> responseClass, CompletableFuture<T> future, int attempt) {
+        HttpPost httpPost = new HttpPost(uri);
+        httpPost.setConfig(methodConfigs.getOrDefault(method, requestConfig));
+        StringEntity entity = new StringEntity(requestStr, ContentType.APPLICATION_JSON);
+        httpPost.setEntity(entity);
+        HttpClientContext context = HttpClientContext.create();
+        //set per request rather than by interceptors, the http client may be shared with clients of other daemons
+        httpPost.setHeader(authHeader);
+        session.process(httpPost, context);
+        compression.process(httpPost, context);
+
+        metrics.onRequest(method, entity.getContentLength());
+        long start = System.nanoTime();
+
+        Future<HttpResponse> exchange = httpClient.execute(httpPost, context, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                //response interceptors run before the async content is attached, so decode here
+                compression.process(response, context);
+                int code = response.getStatusLine().getStatusCode();
+                metrics.onResponse(method, code, System.nanoTime() - start);
+                if (code == HttpStatus.SC_OK) {
+                    long parseStart = System.nanoTime();
+                    try {
+                        byte[] body = EntityUtils.toByteArray(response.getEntity());
+                        T result = JsonUtil.getObject(responseClass, new ByteArrayInputStream(body));
+                        metrics.onParse(method, body.length, System.nanoTime() - parseStart);
+                        TransmissionClient.countTorrents(metrics, method, result);
+                        future.complete(result);
+                    } catch (IOException e) {
+                        log.warn("read content of " + requestStr + ". exception:", e);
+                        TransmissionClient.failed(metrics, method, e);
+                        future.completeExceptionally(new DownloaderException(e.getMessage()));
+                    } catch (JsonException e) {
+                        log.error(e);
+                        metrics.onError(method, e);
+                        future.completeExceptionally(new RuntimeException(e.getMessage()));
+                    }
+                    return;
+                }
+
+                EntityUtils.consumeQuietly(response.getEntity());
+                if (code == HttpStatus.SC_CONFLICT) {
+                    log.info("execute response 409");
+                    metrics.onRenegotiation(method);
+                    Header header = response.getFirstHeader(TransmissionSession.HEADER);
+                    if (header == null) {
+                        future.completeExceptionally(new RuntimeException("transmission return 409 without id"));
+                    } else if (attempt >= MAX_RENEGOTIATIONS) {
+                        log.error("execute error with too many 409 responses");
+                        DownloaderException e = new DownloaderException("execute error with too many 409 responses");
+                        metrics.onError(method, e);
+                        future.completeExceptionally(e);
+                    } else {
+                        session.renegotiate(context, header.getValue());
+                        execute(method, requestStr, responseClass, future, attempt + 1);
+                    }
+                } else if (code == HttpStatus.SC_UNAUTHORIZED) {
+                    log.info("execute response 401");
+                    metrics.onUnauthorized(method);
+                    future.completeExceptionally(new DownloaderException("username: " + username + " or password " + password + " incorrect"));
+                } else {
+                    log.error("execute error with response code " + code);
+                    DownloaderException e = new DownloaderException("execute error with response code " + code);
+                    metrics.onError(method, e);
+                    future.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                log.error(e);
+                TransmissionClient.failed(metrics, method, e);
+                future.completeExceptionally(new DownloaderException(e.getMessage()));
+            }
+
+            @Override
+            public void cancelled() {
+                future.cancel(false);
+            }
+        });
+        future.whenComplete((value, e) -> {
+            if (future.isCancelled())
+                exchange.cancel(true);
+        });
+    }
+
+    /**
+     * source.thenApply(fn) that passes its cancellation on to source, so the request is aborted too
+     */
+    public static <T, R> CompletableFuture<R> thenApply(CompletableFuture<T> source, Function<? super T, ? extends R> fn) {
+        CompletableFuture<R> mapped = source.thenApply(fn);
+        mapped.whenComplete((value, e) -> {
+            if (mapped.isCancelled())
+                source.cancel(true);
+        });
+        return mapped;
+    }
+
+    public CompletableFuture<List<DownloadTask>> get(List<Integer> ids) {
+        return get(ids, TorrentField.FULL);
+    }
+
+    public CompletableFuture<List<DownloadTask>> get(List<Integer> ids, Set<TorrentField> fields) {
+        TransmissionRequest request = ids == null ? TransmissionRequestFactory.getgetAllRequest(fields) : TransmissionRequestFactory.getGetRequest(ids, fields);
+        return thenApply(execute(request, TorrentGetResponse.class), response -> TaskConvert.convertToDownloadTask(response.getArguments().getTorrents()));
+    }
+
+    public CompletableFuture<List<DownloadTask>> get() {
+        return get(null);
+    }
+
+    public CompletableFuture<TransmissionResponse> addByMetainfo(String metainfo) {
+        return execute(TransmissionRequestFactory.getAddRequest(metainfo), TransmissionResponse.class);
+    }
+
+    public CompletableFuture<TransmissionResponse> start(List<Integer> ids) {
+        return execute(TransmissionRequestFactory.getStartRequest(ids), TransmissionResponse.class);
+    }
+
+    public CompletableFuture<TransmissionResponse> stop(List<Integer> ids) {
+        return execute(TransmissionRequestFactory.getStopRequest(ids), TransmissionResponse.class);
+    }
+
+    public CompletableFuture<TransmissionResponse> remove(List<Integer> ids) {
+        return execute(TransmissionRequestFactory.getRemoveRequest(ids), TransmissionResponse.class);
+    }
+
+    public CompletableFuture<SessionStatsResponse> sessionStats() {
+        return execute(new SessionStatsRequest(), SessionStatsResponse.class);
+    }
+
+    public CompressionStats getCompressionStats() {
+        return compressionStats;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (ownsHttpClient)
+            httpClient.close();
+    }
+}
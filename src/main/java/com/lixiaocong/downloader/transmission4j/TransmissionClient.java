@@ -34,121 +34,354 @@ import com.lixiaocong.downloader.DownloadTask;
 import com.lixiaocong.downloader.DownloaderException;
 import com.lixiaocong.downloader.IDownloader;
 import com.lixiaocong.downloader.transmission4j.exception.JsonException;
+import com.lixiaocong.downloader.transmission4j.metrics.TransmissionMetrics;
+import com.lixiaocong.downloader.transmission4j.request.SessionGetRequest;
+import com.lixiaocong.downloader.transmission4j.request.TorrentAddRequest;
+import com.lixiaocong.downloader.transmission4j.request.TorrentField;
 import com.lixiaocong.downloader.transmission4j.request.TorrentStartRequest;
 import com.lixiaocong.downloader.transmission4j.request.TorrentStopRequest;
 import com.lixiaocong.downloader.transmission4j.request.TransmissionRequest;
 import com.lixiaocong.downloader.transmission4j.request.TransmissionRequestFactory;
+import com.lixiaocong.downloader.transmission4j.request.TransmissionRequestMethod;
+import com.lixiaocong.downloader.transmission4j.response.Torrent;
+import com.lixiaocong.downloader.transmission4j.response.TorrentAddResponse;
 import com.lixiaocong.downloader.transmission4j.response.TorrentGetResponse;
 import com.lixiaocong.downloader.transmission4j.response.TransmissionResponse;
 import com.lixiaocong.downloader.transmission4j.utils.JsonUtil;
-import com.lixiaocong.downloader.transmission4j.utils.TaskConvert;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpHeaders;
-import org.apache.http.HttpResponse;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponseInterceptor;
 import org.apache.http.HttpStatus;
-import org.apache.http.client.HttpClient;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
-import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicHeader;
 import org.apache.http.util.EntityUtils;
 
+import java.io.Closeable;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.LinkedList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
- * Transmission java client
+ * Transmission java client, it is safe to share one instance between threads
  */
-public class TransmissionClient implements IDownloader {
+public class TransmissionClient implements IDownloader, Closeable {
     private static Log log = LogFactory.getLog(TransmissionClient.class.getName());
+    private static final int MAX_RENEGOTIATIONS = 2;
+    private static final int LAZY_BATCH_SIZE = 50;
 
     private String username;
     private String password;
-    private String id;  //id is used in transmission rpc, details in https://trac.transmissionbt.com/browser/trunk/extras/rpc-spec.txt
+    private String uri;
+    private TransmissionSession session;    //id is used in transmission rpc, details in https://trac.transmissionbt.com/browser/trunk/extras/rpc-spec.txt
+    private CompressionStats compressionStats;
 
-    private HttpClient httpClient;
-    private HttpPost httpPost;
+    private CloseableHttpClient httpClient;
+    private RequestConfig requestConfig;
+    private RequestCoalescer coalescer;     //null if coalescing is disabled
+    private TransmissionMetrics metrics;
+    private Map<String, RequestConfig> methodConfigs = new HashMap<>();    //methods with their own timeout
+    private RetryPolicy retryPolicy;
 
     public TransmissionClient(String username, String password, String uri) {
+        this(username, password, uri, new TransmissionClientConfig());
+    }
+
+    public TransmissionClient(String username, String password, String uri, TransmissionClientConfig config) {
         log.info("new TransmissionClient username:" + username + " password:" + password + " uri:" + uri);
         this.username = username;
         this.password = password;
-        this.id = null;
+        this.uri = uri;
+        this.session = new TransmissionSession();
+        this.compressionStats = new CompressionStats();
+        this.metrics = config.getMetrics();
 
-        buildHttpClient();
-
-        httpPost = new HttpPost(uri);
-        RequestConfig config = RequestConfig.custom().setSocketTimeout(2000).setConnectTimeout(2000).setConnectionRequestTimeout(2000).build();
-        httpPost.setConfig(config);
+        requestConfig = RequestConfig.custom().setSocketTimeout(config.getSocketTimeout()).setConnectTimeout(config.getConnectTimeout()).setConnectionRequestTimeout(config.getConnectionRequestTimeout()).build();
+        for (Map.Entry<String, Integer> entry : config.getMethodTimeouts().entrySet())
+            methodConfigs.put(entry.getKey(), RequestConfig.copy(requestConfig).setSocketTimeout(entry.getValue()).build());
+        retryPolicy = config.getRetryPolicy();
+        buildHttpClient(config);
+        if (config.isCoalescing())
+            coalescer = new RequestCoalescer(config.getCoalescingTtl());
     }
 
-    private void buildHttpClient() {
-        log.info("build client with X-Transmission-Session-Id:" + id);
+    private void buildHttpClient(TransmissionClientConfig config) {
+        log.info("build client with maxTotal:" + config.getMaxTotal() + " maxPerRoute:" + config.getMaxPerRoute());
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(config.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(config.getMaxPerRoute());
+
         Header authHeader = new BasicHeader(HttpHeaders.AUTHORIZATION, String.format("Basic %s", Base64.getEncoder().encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8))));
-        Header idHeader = new BasicHeader("X-Transmission-Session-Id", id);
-        List<Header> headers = new ArrayList<>();
-        headers.add(authHeader);
-        headers.add(idHeader);
-        httpClient = HttpClients.custom().setDefaultHeaders(headers).build();
+        ResponseCompression compression = new ResponseCompression(compressionStats, config.isCompression());
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultHeaders(Collections.singletonList(authHeader))
+                .addInterceptorLast(session)
+                .disableContentCompression()
+                .addInterceptorLast((HttpRequestInterceptor) compression)
+                .addInterceptorLast((HttpResponseInterceptor) compression)
+                .build();
+    }
+
+    private interface ContentReader<T> {
+        T read(InputStream content) throws IOException, JsonException;
+    }
+
+    /**
+     * send any request built by TransmissionRequestFactory and read the response as responseClass
+     * with coalescing enabled untagged reads may be coalesced with identical concurrent ones, callers then share the same response object
+     */
+    public <T extends TransmissionResponse> T execute(TransmissionRequest request, Class<T> responseClass) throws DownloaderException {
+        //counted where the body is parsed, coalesced callers share one response and must not count it again
+        T response = read(request, responseClass.getName(), content -> {
+            T parsed = JsonUtil.getObject(responseClass, content);
+            countTorrents(metrics, request.getMethod(), parsed);
+            return parsed;
+        });
+        if (request.getTag() != null && !request.getTag().equals(response.getTag()))
+            throw new DownloaderException("response tag " + response.getTag() + " does not match request tag " + request.getTag());
+        return response;
+    }
+
+    /**
+     * coalesce untagged reads by method, kind of result and arguments, everything else goes straight to the daemon
+     */
+    private <T> T read(TransmissionRequest request, String kind, ContentReader<T> reader) throws DownloaderException {
+        if (coalescer != null && request.getTag() == null && isRead(request.getMethod())) {
+            String key;
+            try {
+                key = request.getMethod() + kind + JsonUtil.getJson(request.getArguments());
+            } catch (JsonException e) {
+                log.error(e);
+                throw new RuntimeException(e.getMessage());
+            }
+            return coalescer.execute(key, () -> execute(request, reader));
+        }
+        return execute(request, reader);
     }
 
-    private <T extends TransmissionResponse> T execute(TransmissionRequest request, Class<T> responseClass) throws DownloaderException {
-        String requestStr;
+    private static boolean isRead(String method) {
+        return TransmissionRequestMethod.TORRENT_GET.equals(method) || TransmissionRequestMethod.SESSION_GET.equals(method) || TransmissionRequestMethod.SESSION_STATS.equals(method);
+    }
+
+    /**
+     * send the request, retrying it as the RetryPolicy allows, within the Deadline of the current thread if there is one
+     */
+    private <T> T execute(TransmissionRequest request, ContentReader<T> reader) throws DownloaderException {
+        String method = request.getMethod();
+        byte[] requestBytes;
         try {
-            requestStr = JsonUtil.getJson(request);
+            requestBytes = JsonUtil.getJson(request).getBytes(StandardCharsets.UTF_8);
         } catch (JsonException e) {
             log.error(e);
             throw new RuntimeException(e.getMessage());
         }
 
-        //log.info("execute request " + requestStr);
-        httpPost.setEntity(new StringEntity(requestStr, ContentType.APPLICATION_JSON));
-        HttpResponse response;
-        try {
-            response = httpClient.execute(httpPost);
-        } catch (IOException e) {
-            log.error(e);
-            throw new DownloaderException(e.getMessage());
-        }
+        return execute(method, new ByteArrayEntity(requestBytes, ContentType.APPLICATION_JSON), reader);
+    }
 
-        int code = response.getStatusLine().getStatusCode();
-        if (code == HttpStatus.SC_OK) {
-            String responseStr;
+    /**
+     * entity is the whole body of the rpc call, it is only retried or sent again after a 409 if it is repeatable
+     */
+    private <T> T execute(String method, HttpEntity entity, ContentReader<T> reader) throws DownloaderException {
+        boolean retryable = retryPolicy != null && retryPolicy.isRetryable(method) && entity.isRepeatable();
+        for (int attempt = 1; ; attempt++) {
             try {
-                responseStr = EntityUtils.toString(response.getEntity());
-            } catch (IOException e) {
-                log.warn("read content of " + requestStr + ". exception:", e);
-                throw new DownloaderException(e.getMessage());
+                return send(method, entity, reader);
+            } catch (RetryableException e) {
+                if (!retryable || attempt >= retryPolicy.getMaxAttempts())
+                    throw new DownloaderException(e.getMessage());
+                long delay = retryPolicy.getDelay(attempt);
+                Deadline deadline = Deadline.current();
+                if (deadline != null && deadline.remainingMillis() <= delay)
+                    throw new DownloaderException(e.getMessage());
+                log.info("retry " + method + " in " + delay + "ms after: " + e.getMessage());
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new DownloaderException("interrupted while waiting to retry " + method);
+                }
             }
-//            log.info("execute response " + responseStr);
-            try {
-                return JsonUtil.getObject(responseClass, responseStr);
-            } catch (JsonException e) {
+        }
+    }
+
+    /**
+     * the timeouts of method, cut to the Deadline of the current thread
+     */
+    private RequestConfig requestConfig(String method) throws DownloaderException {
+        RequestConfig config = methodConfigs.getOrDefault(method, requestConfig);
+        Deadline deadline = Deadline.current();
+        if (deadline == null)
+            return config;
+        //0 means no timeout to httpclient, an expired deadline must not become an infinite wait
+        if (deadline.isExpired()) {
+            metrics.onTimeout(method);
+            throw new DownloaderException("deadline exceeded before " + method);
+        }
+        int remaining = (int) Math.max(Math.min(deadline.remainingMillis(), Integer.MAX_VALUE), 1);
+        return RequestConfig.copy(config)
+                .setSocketTimeout(Math.min(config.getSocketTimeout(), remaining))
+                .setConnectTimeout(Math.min(config.getConnectTimeout(), remaining))
+                .setConnectionRequestTimeout(Math.min(config.getConnectionRequestTimeout(), remaining))
+                .build();
+    }
+
+    /**
+     * one try of the request, the response body is handed to reader as a stream, it is never copied into a String
+     * failures before the body is read are thrown as RetryableException
+     */
+    private <T> T send(String method, HttpEntity entity, ContentReader<T> reader) throws DownloaderException {
+        //log.info("execute request " + requestStr);
+        //the session id is added by TransmissionSession, a 409 only costs one more round trip on the pooled connections
+        for (int attempt = 0; attempt <= MAX_RENEGOTIATIONS; attempt++) {
+            HttpPost httpPost = new HttpPost(uri);
+            httpPost.setConfig(requestConfig(method));
+            httpPost.setEntity(entity);
+            HttpClientContext context = HttpClientContext.create();
+
+            metrics.onRequest(method, entity.getContentLength());
+            long start = System.nanoTime();
+            try (CloseableHttpResponse response = httpClient.execute(httpPost, context)) {
+                int code = response.getStatusLine().getStatusCode();
+                metrics.onResponse(method, code, System.nanoTime() - start);
+                if (code == HttpStatus.SC_OK) {
+                    long parseStart = System.nanoTime();
+                    try (CountingInputStream content = new CountingInputStream(response.getEntity().getContent())) {
+                        T result = reader.read(content);
+                        metrics.onParse(method, content.count, System.nanoTime() - parseStart);
+                        return result;
+                    } catch (IOException e) {
+                        log.warn("read content of " + method + ". exception:", e);
+                        failed(method, e);
+                        throw new DownloaderException(e.getMessage());
+                    } catch (JsonException e) {
+                        log.error(e);
+                        metrics.onError(method, e);
+                        throw new RuntimeException(e.getMessage());
+                    }
+                }
+
+                //release the connection back to the pool before handling the error
+                EntityUtils.consumeQuietly(response.getEntity());
+                if (code == HttpStatus.SC_CONFLICT) {
+                    log.info("execute response 409");
+                    metrics.onRenegotiation(method);
+                    Header header = response.getFirstHeader(TransmissionSession.HEADER);
+                    if (header == null)
+                        throw new RuntimeException("transmission return 409 without id");
+                    session.renegotiate(context, header.getValue());
+                    if (!entity.isRepeatable())
+                        throw new DownloaderException("transmission return 409 for a " + method + " body that can not be sent again");
+                } else if (code == HttpStatus.SC_UNAUTHORIZED) {
+                    log.info("execute response 401");
+                    metrics.onUnauthorized(method);
+                    throw new DownloaderException("username: " + username + " or password " + password + " incorrect");
+                } else {
+                    log.error("execute error with response code " + code);
+                    DownloaderException e = code >= HttpStatus.SC_INTERNAL_SERVER_ERROR ? new RetryableException("execute error with response code " + code) : new DownloaderException("execute error with response code " + code);
+                    metrics.onError(method, e);
+                    throw e;
+                }
+            } catch (IOException e) {
                 log.error(e);
-                throw new RuntimeException(e.getMessage());
+                failed(method, e);
+                throw new RetryableException(e.getMessage());
             }
-        } else if (code == HttpStatus.SC_CONFLICT) {
-            log.info("execute response 409");
-            Header[] headers = response.getHeaders("X-Transmission-Session-Id");
-            if (headers.length == 0)
-                throw new RuntimeException("transmission return 409 without id");
-            id = headers[0].getValue();
-            buildHttpClient();
-            return execute(request, responseClass);
-        } else if (code == HttpStatus.SC_UNAUTHORIZED) {
-            log.info("execute response 401");
-            throw new DownloaderException("username: " + username + " or password " + password + " incorrect");
         }
-        log.error("execute error with response code " + code);
-        throw new DownloaderException("execute error with response code " + code);
+        log.error("execute error with too many 409 responses");
+        DownloaderException e = new DownloaderException("execute error with too many 409 responses");
+        metrics.onError(method, e);
+        throw e;
+    }
+
+    private void failed(String method, IOException e) {
+        failed(metrics, method, e);
+    }
+
+    static void failed(TransmissionMetrics metrics, String method, Exception e) {
+        if (e instanceof SocketTimeoutException || e instanceof ConnectTimeoutException || e instanceof ConnectionPoolTimeoutException)
+            metrics.onTimeout(method);
+        else
+            metrics.onError(method, e);
+    }
+
+    static void countTorrents(TransmissionMetrics metrics, String method, TransmissionResponse response) {
+        if (response instanceof TorrentGetResponse && ((TorrentGetResponse) response).getArguments() != null && ((TorrentGetResponse) response).getArguments().getTorrents() != null)
+            metrics.onTorrents(method, ((TorrentGetResponse) response).getArguments().getTorrents().size());
+    }
+
+    /**
+     * a failure of one try that did not read any of the response body, sending the request again is safe for idempotent methods
+     */
+    private static class RetryableException extends DownloaderException {
+        private static final long serialVersionUID = 1L;
+
+        RetryableException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * counts the decoded bytes read by a ContentReader, it is only used by one thread
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1)
+                count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0)
+                count += n;
+            return n;
+        }
+    }
+
+    public CompressionStats getCompressionStats() {
+        return compressionStats;
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
     }
 
     @Override
@@ -158,6 +391,68 @@ public class TransmissionClient implements IDownloader {
         response.getResult().equals("success");
     }
 
+    /**
+     * add the .torrent file at path, it is base64 encoded into the request body while it is sent
+     * files of 1MB or more are memory mapped
+     * a torrent the daemon already has is no error, the response carries it as torrent-duplicate
+     */
+    public TorrentAddResponse addByMetainfo(Path path) throws DownloaderException {
+        return addByMetainfo(path, false);
+    }
+
+    /**
+     * @param paused add the torrent without starting it
+     */
+    public TorrentAddResponse addByMetainfo(Path path, boolean paused) throws DownloaderException {
+        MetainfoEntity entity;
+        try {
+            entity = MetainfoEntity.of(addRequest(paused), path);
+        } catch (IOException e) {
+            log.error(e);
+            throw new DownloaderException("read " + path + " failed: " + e.getMessage());
+        }
+        return add(entity);
+    }
+
+    /**
+     * add the .torrent read from in, in is closed afterwards
+     * the stream can only be sent once, so a session id is fetched first if there is none yet
+     */
+    public TorrentAddResponse addByMetainfo(InputStream in) throws DownloaderException {
+        return addByMetainfo(in, false);
+    }
+
+    public TorrentAddResponse addByMetainfo(InputStream in, boolean paused) throws DownloaderException {
+        //closed here too, a request that fails before the body is written never reads it
+        try {
+            if (session.getId() == null)
+                execute(new SessionGetRequest(), TransmissionResponse.class);
+            return add(MetainfoEntity.of(addRequest(paused), in));
+        } finally {
+            try {
+                in.close();
+            } catch (IOException e) {
+                log.warn("close metainfo stream exception:", e);
+            }
+        }
+    }
+
+    private static TorrentAddRequest addRequest(boolean paused) {
+        TorrentAddRequest request = new TorrentAddRequest(MetainfoEntity.PLACEHOLDER);
+        if (paused)
+            request.setPausedOnAdd();
+        return request;
+    }
+
+    private TorrentAddResponse add(MetainfoEntity entity) throws DownloaderException {
+        TorrentAddResponse response = execute(TransmissionRequestMethod.TORRENT_ADD, entity, content -> JsonUtil.getObject(TorrentAddResponse.class, content));
+        //transmission answers a duplicate with a failure result, but it still names the torrent it already has
+        boolean duplicate = response.getArguments() != null && response.getArguments().isDuplicate();
+        if (!"success".equals(response.getResult()) && !duplicate)
+            throw new DownloaderException("torrent-add failed: " + response.getResult());
+        return response;
+    }
+
     @Override
     public void addByMetalink(String metalink) throws DownloaderException {
         throw new DownloaderException("not supported");
@@ -239,17 +534,112 @@ public class TransmissionClient implements IDownloader {
 
     @Override
     public DownloadTask get(String gid) throws DownloaderException {
-        List<Integer> list = new LinkedList<>();
-        list.add(Integer.valueOf(gid));
-        TransmissionRequest request = TransmissionRequestFactory.getGetRequest(list);
-        TorrentGetResponse response = execute(request, TorrentGetResponse.class);
-        return TaskConvert.convertToDownloadTask(response.getArguments().getTorrents()).get(0);
+        return get(gid, TorrentField.FULL);
+    }
+
+    /**
+     * only the given fields are requested, the other properties of the task are left empty
+     */
+    public DownloadTask get(String gid, Set<TorrentField> fields) throws DownloaderException {
+        TransmissionRequest request = TransmissionRequestFactory.getGetRequest(Collections.singletonList(Integer.valueOf(gid)), fields);
+        List<DownloadTask> tasks = readDownloadTasks(request);
+        if (tasks.isEmpty())
+            throw new DownloaderException("torrent " + gid + " not found");
+        return tasks.get(0);
     }
 
     @Override
     public List<DownloadTask> get() throws DownloaderException {
-        TransmissionRequest request = TransmissionRequestFactory.getgetAllRequest();
-        TorrentGetResponse response = execute(request, TorrentGetResponse.class);
-        return TaskConvert.convertToDownloadTask(response.getArguments().getTorrents());
+        return get(TorrentField.FULL);
+    }
+
+    public List<DownloadTask> get(Set<TorrentField> fields) throws DownloaderException {
+        List<DownloadTask> tasks = readDownloadTasks(TransmissionRequestFactory.getgetAllRequest(fields));
+        //a coalesced list is shared by every caller, each of them gets its own copy
+        return coalescer == null ? tasks : new ArrayList<>(tasks);
+    }
+
+    /**
+     * all torrents without their files, the file list of a task is fetched on first access
+     * together with the lists of up to LAZY_BATCH_SIZE - 1 tasks after it in this call that were not loaded yet
+     * size(), get() and iteration of a file list that is not loaded yet block on a torrent-get
+     * and throw IllegalStateException if it fails, the next access tries again
+     */
+    public List<DownloadTask> getLazy() throws DownloaderException {
+        return getLazy(TorrentField.SUMMARY, LAZY_BATCH_SIZE);
+    }
+
+    /**
+     * FILES is removed from fields, batchSize is the max number of file lists loaded by one torrent-get
+     */
+    public List<DownloadTask> getLazy(Set<TorrentField> fields, int batchSize) throws DownloaderException {
+        EnumSet<TorrentField> withoutFiles = EnumSet.copyOf(fields);
+        withoutFiles.remove(TorrentField.FILES);
+        withoutFiles.add(TorrentField.ID);
+        TransmissionRequest request = TransmissionRequestFactory.getgetAllRequest(withoutFiles);
+        LazyFileLoader loader = new LazyFileLoader(this, batchSize);
+        List<DownloadTask> tasks = new ArrayList<>();
+        String result = execute(request, content -> JsonUtil.readDownloadTasks(content, loader::create, tasks::add));
+        if (!"success".equals(result))
+            throw new DownloaderException("torrent-get failed: " + result);
+        metrics.onTorrents(request.getMethod(), tasks.size());
+        return tasks;
+    }
+
+    /**
+     * clear tasks and fill it with all torrents, pollers keep one list so its backing array is reused between polls
+     */
+    public void get(Set<TorrentField> fields, List<DownloadTask> tasks) throws DownloaderException {
+        tasks.clear();
+        get(fields, (Consumer<DownloadTask>) tasks::add);
+    }
+
+    /**
+     * the torrents of the response are bound straight to DownloadTasks, no Torrent is created on the way
+     */
+    private List<DownloadTask> readDownloadTasks(TransmissionRequest request) throws DownloaderException {
+        return read(request, DownloadTask.class.getName(), content -> {
+            List<DownloadTask> tasks = new ArrayList<>();
+            String result = JsonUtil.readDownloadTasks(content, tasks::add);
+            if (!"success".equals(result))
+                throw new IOException("torrent-get failed: " + result);
+            metrics.onTorrents(request.getMethod(), tasks.size());
+            return tasks;
+        });
+    }
+
+    /**
+     * stream all torrents to consumer one by one while the response is still being read
+     */
+    public void getTorrents(Consumer<Torrent> consumer) throws DownloaderException {
+        getTorrents(TorrentField.FULL, consumer);
+    }
+
+    public void getTorrents(Set<TorrentField> fields, Consumer<Torrent> consumer) throws DownloaderException {
+        TransmissionRequest request = TransmissionRequestFactory.getgetAllRequest(fields);
+        int[] count = new int[1];
+        String result = execute(request, content -> JsonUtil.readTorrents(content, item -> {
+            count[0]++;
+            consumer.accept(item);
+        }));
+        if (!"success".equals(result))
+            throw new DownloaderException("torrent-get failed: " + result);
+        metrics.onTorrents(request.getMethod(), count[0]);
+    }
+
+    public void get(Consumer<DownloadTask> consumer) throws DownloaderException {
+        get(TorrentField.FULL, consumer);
+    }
+
+    public void get(Set<TorrentField> fields, Consumer<DownloadTask> consumer) throws DownloaderException {
+        TransmissionRequest request = TransmissionRequestFactory.getgetAllRequest(fields);
+        int[] count = new int[1];
+        String result = execute(request, content -> JsonUtil.readDownloadTasks(content, item -> {
+            count[0]++;
+            consumer.accept(item);
+        }));
+        if (!"success".equals(result))
+            throw new DownloaderException("torrent-get failed: " + result);
+        metrics.onTorrents(request.getMethod(), count[0]);
     }
 }
\ No newline at end of file
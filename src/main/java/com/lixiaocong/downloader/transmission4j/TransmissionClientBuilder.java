@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j;
+
+import com.lixiaocong.downloader.transmission4j.metrics.TransmissionMetrics;
+
+/**
+ * Fluent way to set up a {@link TransmissionClientConfig} and build the client from it
+ * <pre>
+ * TransmissionClient client = new TransmissionClientBuilder("http://localhost:9091/transmission/rpc")
+ *         .credentials("user", "password")
+ *         .socketTimeout(TransmissionRequestMethod.TORRENT_GET, 30000)
+ *         .socketTimeout(TransmissionRequestMethod.TORRENT_START, 1000)
+ *         .retryPolicy(new RetryPolicy())
+ *         .build();
+ * </pre>
+ * the config can be shared with TransmissionAsyncClient and TransmissionFleetClient, they use the timeouts, per method ones included,
+ * compression and metrics, but never retry and ignore Deadline, the fleet bounds every node with its own nodeTimeout instead
+ */
+public class TransmissionClientBuilder {
+    private final String uri;
+    private final TransmissionClientConfig config = new TransmissionClientConfig();
+    private String username;
+    private String password;
+
+    public TransmissionClientBuilder(String uri) {
+        this.uri = uri;
+    }
+
+    public TransmissionClientBuilder credentials(String username, String password) {
+        this.username = username;
+        this.password = password;
+        return this;
+    }
+
+    public TransmissionClientBuilder maxConnections(int maxConnections) {
+        config.setMaxTotal(maxConnections);
+        config.setMaxPerRoute(maxConnections);
+        return this;
+    }
+
+    public TransmissionClientBuilder connectTimeout(int timeout) {
+        config.setConnectTimeout(timeout);
+        return this;
+    }
+
+    public TransmissionClientBuilder connectionRequestTimeout(int timeout) {
+        config.setConnectionRequestTimeout(timeout);
+        return this;
+    }
+
+    /**
+     * socket timeout of every method without its own
+     */
+    public TransmissionClientBuilder socketTimeout(int timeout) {
+        config.setSocketTimeout(timeout);
+        return this;
+    }
+
+    public TransmissionClientBuilder socketTimeout(String method, int timeout) {
+        config.setSocketTimeout(method, timeout);
+        return this;
+    }
+
+    /**
+     * only TransmissionClient retries, the async and fleet clients fail at the first error
+     */
+    public TransmissionClientBuilder retryPolicy(RetryPolicy retryPolicy) {
+        config.setRetryPolicy(retryPolicy);
+        return this;
+    }
+
+    public TransmissionClientBuilder compression(boolean compression) {
+        config.setCompression(compression);
+        return this;
+    }
+
+    public TransmissionClientBuilder coalescing(boolean coalescing, long ttl) {
+        config.setCoalescing(coalescing);
+        config.setCoalescingTtl(ttl);
+        return this;
+    }
+
+    public TransmissionClientBuilder metrics(TransmissionMetrics metrics) {
+        config.setMetrics(metrics);
+        return this;
+    }
+
+    public TransmissionClientConfig getConfig() {
+        return config;
+    }
+
+    public TransmissionClient build() {
+        return new TransmissionClient(username, password, uri, config);
+    }
+}
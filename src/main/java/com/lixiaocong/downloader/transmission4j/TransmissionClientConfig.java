@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j;
+
+import com.lixiaocong.downloader.transmission4j.metrics.TransmissionMetrics;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Connection settings of a {@link TransmissionClient}
+ */
+public class TransmissionClientConfig {
+    private int maxTotal = 20;          //max connections kept in the pool
+    private int maxPerRoute = 20;       //max connections to the transmission daemon
+    private int connectTimeout = 2000;
+    private int socketTimeout = 2000;
+    private int connectionRequestTimeout = 2000;    //time to wait for a free connection from the pool
+    private boolean compression = true;     //ask for gzip/deflate responses, transmission decides whether to compress
+    private boolean coalescing = false;     //concurrent identical torrent-get, session-get and session-stats share one request and its response objects
+    private long coalescingTtl = 0;         //milliseconds a coalesced response is reused after it arrived
+    private TransmissionMetrics metrics = TransmissionMetrics.NOOP;
+    private Map<String, Integer> methodTimeouts = new HashMap<>();     //socket timeout of single rpc methods, socketTimeout for the others
+    private RetryPolicy retryPolicy;        //null if nothing is retried
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public void setMaxTotal(int maxTotal) {
+        this.maxTotal = maxTotal;
+    }
+
+    public int getMaxPerRoute() {
+        return maxPerRoute;
+    }
+
+    public void setMaxPerRoute(int maxPerRoute) {
+        this.maxPerRoute = maxPerRoute;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public int getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    public void setSocketTimeout(int socketTimeout) {
+        this.socketTimeout = socketTimeout;
+    }
+
+    public int getConnectionRequestTimeout() {
+        return connectionRequestTimeout;
+    }
+
+    public void setConnectionRequestTimeout(int connectionRequestTimeout) {
+        this.connectionRequestTimeout = connectionRequestTimeout;
+    }
+
+    public boolean isCompression() {
+        return compression;
+    }
+
+    public void setCompression(boolean compression) {
+        this.compression = compression;
+    }
+
+    public boolean isCoalescing() {
+        return coalescing;
+    }
+
+    public void setCoalescing(boolean coalescing) {
+        this.coalescing = coalescing;
+    }
+
+    public long getCoalescingTtl() {
+        return coalescingTtl;
+    }
+
+    public void setCoalescingTtl(long coalescingTtl) {
+        this.coalescingTtl = coalescingTtl;
+    }
+
+    public TransmissionMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(TransmissionMetrics metrics) {
+        this.metrics = metrics == null ? TransmissionMetrics.NOOP : metrics;
+    }
+
+    /**
+     * socket timeout used for method, a torrent-get of a large library may need much more than a torrent-start
+     */
+    public int getSocketTimeout(String method) {
+        Integer timeout = methodTimeouts.get(method);
+        return timeout == null ? socketTimeout : timeout;
+    }
+
+    public void setSocketTimeout(String method, int timeout) {
+        methodTimeouts.put(method, timeout);
+    }
+
+    public Map<String, Integer> getMethodTimeouts() {
+        return Collections.unmodifiableMap(methodTimeouts);
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+}
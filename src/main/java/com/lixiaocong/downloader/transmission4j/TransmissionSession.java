@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.protocol.HttpContext;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * X-Transmission-Session-Id shared by all requests of one client, details in rpc-spec.txt section 2.3.1
+ */
+class TransmissionSession implements HttpRequestInterceptor {
+    static final String HEADER = "X-Transmission-Session-Id";
+    private static final String CONTEXT_ATTRIBUTE = "transmission.session-id";
+    private static Log log = LogFactory.getLog(TransmissionSession.class.getName());
+
+    private final AtomicReference<String> id = new AtomicReference<>();
+
+    @Override
+    public void process(HttpRequest request, HttpContext context) {
+        String current = id.get();
+        if (current != null)
+            request.setHeader(HEADER, current);
+        //remember which id the request carried, so a 409 can tell whether it is already outdated
+        context.setAttribute(CONTEXT_ATTRIBUTE, current);
+    }
+
+    String getId() {
+        return id.get();
+    }
+
+    /**
+     * replace the id a request was sent with by the one returned in a 409 response
+     * when many requests fail together only the first one swaps the id, the others just retry with it
+     */
+    void renegotiate(HttpContext context, String newId) {
+        String used = (String) context.getAttribute(CONTEXT_ATTRIBUTE);
+        if (id.compareAndSet(used, newId))
+            log.info("renegotiate X-Transmission-Session-Id:" + newId);
+    }
+}
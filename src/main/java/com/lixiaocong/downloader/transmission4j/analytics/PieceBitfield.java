@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.analytics;
+
+import com.lixiaocong.downloader.transmission4j.response.TorrentFile;
+
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Pieces a torrent has, decoded once from the base64 "pieces" field into one bit per piece packed in longs
+ * bit p % 64 of word p / 64 is piece p, so counts over ranges are a popcount per word
+ */
+public class PieceBitfield {
+    private final long[] words;
+    private final int pieceCount;
+    private final int cardinality;
+
+    private PieceBitfield(long[] words, int pieceCount) {
+        this.words = words;
+        this.pieceCount = pieceCount;
+        int count = 0;
+        for (long word : words)
+            count += Long.bitCount(word);
+        this.cardinality = count;
+    }
+
+    /**
+     * decode the pieces field of transmission, the highest bit of its first byte is piece 0
+     */
+    public static PieceBitfield decode(String pieces, int pieceCount) {
+        byte[] bytes = Base64.getDecoder().decode(pieces);
+        if ((long) bytes.length * 8 < pieceCount)
+            throw new IllegalArgumentException("pieces has " + bytes.length * 8 + " bits for " + pieceCount + " pieces");
+
+        long[] words = new long[(pieceCount + 63) >>> 6];
+        int bytesUsed = (pieceCount + 7) >>> 3;
+        for (int i = 0; i < bytesUsed; i++) {
+            //the bit order inside a byte is reversed, piece 8i is its highest bit
+            long b = Integer.reverse(bytes[i] & 0xff) >>> 24;
+            words[i >>> 3] |= b << ((i & 7) << 3);
+        }
+        //padding bits of the last byte are not pieces
+        if ((pieceCount & 63) != 0)
+            words[words.length - 1] &= (1L << (pieceCount & 63)) - 1;
+        return new PieceBitfield(words, pieceCount);
+    }
+
+    public int getPieceCount() {
+        return pieceCount;
+    }
+
+    public boolean has(int piece) {
+        if (piece < 0 || piece >= pieceCount)
+            throw new IndexOutOfBoundsException("piece " + piece + " of " + pieceCount);
+        return (words[piece >>> 6] & 1L << piece) != 0;
+    }
+
+    /**
+     * number of pieces the torrent has
+     */
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public double getPercentDone() {
+        return pieceCount == 0 ? 1 : (double) cardinality / pieceCount;
+    }
+
+    /**
+     * number of pieces it has in [from, to)
+     */
+    public int count(int from, int to) {
+        if (from < 0 || to > pieceCount || from > to)
+            throw new IndexOutOfBoundsException("range [" + from + ", " + to + ") of " + pieceCount);
+        if (from == to)
+            return 0;
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last)
+            return Long.bitCount(words[first] & firstMask & lastMask);
+        int count = Long.bitCount(words[first] & firstMask);
+        for (int i = first + 1; i < last; i++)
+            count += Long.bitCount(words[i]);
+        return count + Long.bitCount(words[last] & lastMask);
+    }
+
+    /**
+     * index of the first piece it does not have at or after from, pieceCount if it has all of them
+     */
+    public int nextMissing(int from) {
+        if (from >= pieceCount)
+            return pieceCount;
+        int i = from >>> 6;
+        long word = ~words[i] & -1L << from;
+        while (true) {
+            if (word != 0)
+                return Math.min(i * 64 + Long.numberOfTrailingZeros(word), pieceCount);
+            if (++i == words.length)
+                return pieceCount;
+            word = ~words[i];
+        }
+    }
+
+    /**
+     * share of the pieces every file overlaps that the torrent has, in the order of files
+     * a piece on the boundary of two files counts for both of them
+     */
+    public double[] getFileCompletion(List<TorrentFile> files, long pieceSize) {
+        double[] completion = new double[files.size()];
+        long offset = 0;
+        for (int i = 0; i < files.size(); i++) {
+            long length = files.get(i).getLength();
+            if (length == 0 || pieceSize <= 0) {
+                completion[i] = 1;
+            } else {
+                int first = (int) Math.min(offset / pieceSize, pieceCount);
+                int last = (int) Math.min((offset + length - 1) / pieceSize + 1, pieceCount);
+                completion[i] = last == first ? 1 : (double) count(first, last) / (last - first);
+            }
+            offset += length;
+        }
+        return completion;
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.analytics;
+
+import com.lixiaocong.downloader.transmission4j.response.Torrent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latest PieceBitfield of every torrent, a poll only decodes the pieces of torrents whose bitfield changed
+ */
+public class PieceIndex {
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * the bitfield of torrent, it must have been fetched with PIECES and PIECE_COUNT
+     */
+    public PieceBitfield update(Torrent torrent) {
+        String pieces = torrent.getPieces();
+        if (pieces == null)
+            throw new IllegalArgumentException("torrent " + torrent.getId() + " was fetched without pieces");
+        Entry entry = entries.get(torrent.getId());
+        if (entry != null && entry.bitfield.getPieceCount() == torrent.getPieceCount() && entry.pieces.equals(pieces))
+            return entry.bitfield;
+        PieceBitfield bitfield = PieceBitfield.decode(pieces, (int) torrent.getPieceCount());
+        entries.put(torrent.getId(), new Entry(pieces, bitfield));
+        return bitfield;
+    }
+
+    public PieceBitfield get(long id) {
+        Entry entry = entries.get(id);
+        return entry == null ? null : entry.bitfield;
+    }
+
+    public void remove(long id) {
+        entries.remove(id);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static class Entry {
+        private final String pieces;
+        private final PieceBitfield bitfield;
+
+        private Entry(String pieces, PieceBitfield bitfield) {
+            this.pieces = pieces;
+            this.bitfield = bitfield;
+        }
+    }
+}
@@ -0,0 +1,330 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.analytics;
+
+import com.lixiaocong.downloader.transmission4j.fleet.FleetResult;
+import com.lixiaocong.downloader.transmission4j.fleet.TransmissionFleetClient;
+import com.lixiaocong.downloader.transmission4j.response.SessionStats;
+import com.lixiaocong.downloader.transmission4j.response.SessionStatsResponseArguments;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rolling aggregation of session-stats over every node of a TransmissionFleetClient
+ * each poll queries all nodes in parallel, samples older than the window are dropped
+ */
+public class SessionStatsAggregator implements Closeable {
+    private static Log log = LogFactory.getLog(SessionStatsAggregator.class.getName());
+
+    /**
+     * values kept for every sample
+     */
+    public enum Metric {
+        DOWNLOAD_SPEED,
+        UPLOAD_SPEED,
+        ACTIVE_TORRENTS,
+        PAUSED_TORRENTS,
+        TORRENTS
+    }
+
+    private static final int METRICS = Metric.values().length;
+
+    private final TransmissionFleetClient fleet;
+    private final long interval;
+    private final long window;
+    private final Map<String, Deque<Sample>> nodes = new ConcurrentHashMap<>();
+    //fleet wide sums of every poll, one entry per round
+    private final Deque<Sample> rounds = new ArrayDeque<>();
+    private volatile long latest = Long.MIN_VALUE;     //time of the newest round, the window ends there
+    private volatile int lastFailures;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param interval poll interval in milliseconds
+     * @param window   length of the sliding window in milliseconds
+     */
+    public SessionStatsAggregator(TransmissionFleetClient fleet, long interval, long window) {
+        if (window <= 0)
+            throw new IllegalArgumentException("window must be positive");
+        this.fleet = fleet;
+        this.interval = interval;
+        this.window = window;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null)
+            return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "transmission-session-stats");
+            thread.setDaemon(true);
+            return thread;
+        });
+        //the next poll is only scheduled once the previous one has finished, a slow fleet never piles up rounds
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                poll().join();
+            } catch (RuntimeException e) {
+                log.error("poll session stats exception:", e);
+            }
+        }, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * query every node once and add the answers to the window
+     */
+    public CompletableFuture<FleetResult<SessionStatsResponseArguments>> poll() {
+        return fleet.sessionStats().thenApply(result -> {
+            record(System.currentTimeMillis(), result);
+            return result;
+        });
+    }
+
+    /**
+     * add one round of answers taken at time, failed nodes add no sample
+     * samples of every node are evicted against time, a node that keeps failing or was removed drops out of the window
+     */
+    public void record(long time, FleetResult<SessionStatsResponseArguments> result) {
+        long[] sums = new long[METRICS];
+        for (Map.Entry<String, SessionStatsResponseArguments> entry : result.getResults().entrySet()) {
+            Sample sample = new Sample(time, entry.getValue());
+            for (int i = 0; i < METRICS; i++)
+                sums[i] += sample.values[i];
+            nodes.compute(entry.getKey(), (node, samples) -> {
+                if (samples == null)
+                    samples = new ArrayDeque<>();
+                synchronized (samples) {
+                    samples.addLast(sample);
+                }
+                return samples;
+            });
+        }
+        lastFailures = result.getFailures().size();
+        synchronized (rounds) {
+            rounds.addLast(new Sample(time, sums, 0, 0));
+            evict(rounds, time);
+        }
+        if (time > latest)
+            latest = time;
+        evictNodes();
+    }
+
+    private void evict(Deque<Sample> samples, long now) {
+        while (!samples.isEmpty() && samples.peekFirst().time < now - window)
+            samples.pollFirst();
+    }
+
+    /**
+     * evict the samples of every node against the newest round, nodes left without samples are removed
+     */
+    private void evictNodes() {
+        long now = latest;
+        for (String node : nodes.keySet()) {
+            nodes.computeIfPresent(node, (key, samples) -> {
+                synchronized (samples) {
+                    evict(samples, now);
+                    return samples.isEmpty() ? null : samples;
+                }
+            });
+        }
+    }
+
+    /**
+     * nodes with at least one sample in the window
+     */
+    public Set<String> getNodes() {
+        evictNodes();
+        return Collections.unmodifiableSet(new TreeSet<>(nodes.keySet()));
+    }
+
+    /**
+     * nodes that failed in the last poll
+     */
+    public int getLastFailures() {
+        return lastFailures;
+    }
+
+    /**
+     * sum of the latest sample of every node
+     */
+    public long getTotal(Metric metric) {
+        evictNodes();
+        long sum = 0;
+        for (Deque<Sample> samples : nodes.values()) {
+            synchronized (samples) {
+                if (!samples.isEmpty())
+                    sum += samples.peekLast().values[metric.ordinal()];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * fleet total averaged over the rounds in the window
+     */
+    public double getAverage(Metric metric) {
+        long[] values = roundValues(metric);
+        if (values.length == 0)
+            return 0;
+        long sum = 0;
+        for (long value : values)
+            sum += value;
+        return (double) sum / values.length;
+    }
+
+    /**
+     * percentile of the fleet total over the rounds in the window, percentile is in [0, 100]
+     */
+    public long getPercentile(Metric metric, double percentile) {
+        return percentile(roundValues(metric), percentile);
+    }
+
+    /**
+     * percentile of the samples of one node in the window
+     */
+    public long getPercentile(String node, Metric metric, double percentile) {
+        Deque<Sample> samples = nodes.get(node);
+        if (samples == null)
+            return 0;
+        return percentile(values(samples, metric), percentile);
+    }
+
+    /**
+     * download rate of a node in bytes per second, from its cumulative downloaded bytes across the window
+     */
+    public double getDownloadRate(String node) {
+        return rate(node, true);
+    }
+
+    /**
+     * upload rate of a node in bytes per second, from its cumulative uploaded bytes across the window
+     */
+    public double getUploadRate(String node) {
+        return rate(node, false);
+    }
+
+    private double rate(String node, boolean download) {
+        Deque<Sample> samples = nodes.get(node);
+        if (samples == null)
+            return 0;
+        Sample first;
+        Sample last;
+        synchronized (samples) {
+            if (samples.size() < 2)
+                return 0;
+            first = samples.peekFirst();
+            last = samples.peekLast();
+        }
+        long bytes = download ? last.downloadedBytes - first.downloadedBytes : last.uploadedBytes - first.uploadedBytes;
+        long millis = last.time - first.time;
+        //a restarted daemon may report smaller cumulative stats
+        if (bytes < 0 || millis <= 0)
+            return 0;
+        return bytes * 1000.0 / millis;
+    }
+
+    private long[] roundValues(Metric metric) {
+        synchronized (rounds) {
+            return values(rounds, metric);
+        }
+    }
+
+    private static long[] values(Deque<Sample> samples, Metric metric) {
+        synchronized (samples) {
+            long[] values = new long[samples.size()];
+            int i = 0;
+            for (Sample sample : samples)
+                values[i++] = sample.values[metric.ordinal()];
+            return values;
+        }
+    }
+
+    /**
+     * nearest rank percentile
+     */
+    private static long percentile(long[] values, double percentile) {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("percentile must be in [0, 100]");
+        if (values.length == 0)
+            return 0;
+        Arrays.sort(values);
+        int rank = (int) Math.ceil(percentile / 100 * values.length);
+        return values[Math.max(rank - 1, 0)];
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private static class Sample {
+        private final long time;
+        private final long[] values;
+        private final long downloadedBytes;
+        private final long uploadedBytes;
+
+        private Sample(long time, long[] values, long downloadedBytes, long uploadedBytes) {
+            this.time = time;
+            this.values = values;
+            this.downloadedBytes = downloadedBytes;
+            this.uploadedBytes = uploadedBytes;
+        }
+
+        private Sample(long time, SessionStatsResponseArguments arguments) {
+            this(time, new long[]{arguments.getDownloadSpeed(), arguments.getUploadSpeed(), arguments.getActiveTorrentCount(), arguments.getPausedTorrentCount(), arguments.getTorrentCount()},
+                    downloaded(arguments.getCumnlativeStats()), uploaded(arguments.getCumnlativeStats()));
+        }
+
+        private static long downloaded(SessionStats stats) {
+            return stats == null ? 0 : stats.getDownloadedBytes();
+        }
+
+        private static long uploaded(SessionStats stats) {
+            return stats == null ? 0 : stats.getUploadedBytes();
+        }
+    }
+}
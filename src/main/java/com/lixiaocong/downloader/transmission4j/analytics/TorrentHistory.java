@@ -0,0 +1,209 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.analytics;
+
+import com.lixiaocong.downloader.transmission4j.response.Torrent;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Last samples of rateDownload, rateUpload and percentDone of every torrent in fixed size primitive rings
+ * all torrents share one set of arrays, a torrent owns a slot of capacity entries in each of them
+ */
+public class TorrentHistory {
+    private final int capacity;
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private int[] free = new int[16];
+    private int freeCount;
+    private int slotCount;
+
+    private long[] time;
+    private long[] rateDownload;
+    private long[] rateUpload;
+    private double[] percentDone;
+    //next write position and number of samples of every slot
+    private int[] head;
+    private int[] count;
+
+    /**
+     * @param capacity samples kept for every torrent
+     */
+    public TorrentHistory(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive");
+        this.capacity = capacity;
+        allocate(16);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * add one sample of torrent taken at time, in milliseconds
+     */
+    public synchronized void record(long now, Torrent torrent) {
+        Integer slot = slots.get(torrent.getId());
+        if (slot == null) {
+            slot = allocateSlot();
+            slots.put(torrent.getId(), slot);
+        }
+        int s = slot;
+        int i = s * capacity + head[s];
+        time[i] = now;
+        rateDownload[i] = torrent.getRateDownload();
+        rateUpload[i] = torrent.getRateUpload();
+        percentDone[i] = torrent.getPercentDone();
+        head[s] = (head[s] + 1) % capacity;
+        if (count[s] < capacity)
+            count[s]++;
+    }
+
+    public synchronized void record(long now, Iterable<Torrent> torrents) {
+        for (Torrent torrent : torrents)
+            record(now, torrent);
+    }
+
+    /**
+     * forget a torrent, its slot is reused by the next new one
+     */
+    public synchronized void remove(long id) {
+        Integer slot = slots.remove(id);
+        if (slot == null)
+            return;
+        count[slot] = 0;
+        head[slot] = 0;
+        if (freeCount == free.length)
+            free = Arrays.copyOf(free, free.length * 2);
+        free[freeCount++] = slot;
+    }
+
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    public synchronized int getSampleCount(long id) {
+        Integer slot = slots.get(id);
+        return slot == null ? 0 : count[slot];
+    }
+
+    /**
+     * mean of the last n rateDownload samples, 0 without samples
+     */
+    public synchronized double getAverageRateDownload(long id, int n) {
+        return average(rateDownload, id, n);
+    }
+
+    public synchronized double getAverageRateUpload(long id, int n) {
+        return average(rateUpload, id, n);
+    }
+
+    /**
+     * seconds until percentDone reaches 1 at the progress speed of the last n samples
+     * 0 if the torrent is done, -1 if there is no progress to extrapolate from
+     */
+    public synchronized long getEta(long id, int n) {
+        Integer slot = slots.get(id);
+        if (slot == null || n <= 0 || count[slot] == 0)
+            return -1;
+        int s = slot;
+        int newest = index(s, 0);
+        if (percentDone[newest] >= 1)
+            return 0;
+        int oldest = index(s, Math.min(n, count[s]) - 1);
+        double progress = percentDone[newest] - percentDone[oldest];
+        long millis = time[newest] - time[oldest];
+        if (progress <= 0 || millis <= 0)
+            return -1;
+        return (long) Math.ceil((1 - percentDone[newest]) / progress * millis / 1000);
+    }
+
+    /**
+     * true if the torrent is not done and neither downloaded nor made progress in its last n samples
+     * a torrent needs n samples before it can be called stalled
+     */
+    public synchronized boolean isStalled(long id, int n) {
+        Integer slot = slots.get(id);
+        if (slot == null || n <= 0 || count[slot] < n)
+            return false;
+        int s = slot;
+        double done = percentDone[index(s, 0)];
+        if (done >= 1)
+            return false;
+        for (int k = 0; k < n; k++) {
+            int i = index(s, k);
+            if (rateDownload[i] > 0 || percentDone[i] != done)
+                return false;
+        }
+        return true;
+    }
+
+    private double average(long[] column, long id, int n) {
+        Integer slot = slots.get(id);
+        if (slot == null)
+            return 0;
+        int s = slot;
+        int samples = Math.min(n, count[s]);
+        if (samples <= 0)
+            return 0;
+        long sum = 0;
+        for (int k = 0; k < samples; k++)
+            sum += column[index(s, k)];
+        return (double) sum / samples;
+    }
+
+    /**
+     * array index of the k-th newest sample of slot
+     */
+    private int index(int slot, int k) {
+        return slot * capacity + Math.floorMod(head[slot] - 1 - k, capacity);
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0)
+            return free[--freeCount];
+        if (slotCount == head.length)
+            allocate(head.length * 2);
+        return slotCount++;
+    }
+
+    private void allocate(int slotCapacity) {
+        int length = slotCapacity * capacity;
+        time = time == null ? new long[length] : Arrays.copyOf(time, length);
+        rateDownload = rateDownload == null ? new long[length] : Arrays.copyOf(rateDownload, length);
+        rateUpload = rateUpload == null ? new long[length] : Arrays.copyOf(rateUpload, length);
+        percentDone = percentDone == null ? new double[length] : Arrays.copyOf(percentDone, length);
+        head = head == null ? new int[slotCapacity] : Arrays.copyOf(head, slotCapacity);
+        count = count == null ? new int[slotCapacity] : Arrays.copyOf(count, slotCapacity);
+    }
+}
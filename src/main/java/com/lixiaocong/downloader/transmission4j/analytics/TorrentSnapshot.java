@@ -0,0 +1,309 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.analytics;
+
+import com.lixiaocong.downloader.DownloaderException;
+import com.lixiaocong.downloader.transmission4j.TransmissionClient;
+import com.lixiaocong.downloader.transmission4j.request.TorrentField;
+import com.lixiaocong.downloader.transmission4j.response.Torrent;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Immutable snapshot of the torrents of one daemon stored as parallel primitive columns sorted by id
+ * row i of every column belongs to the same torrent, a snapshot of 100k torrents is a handful of arrays instead of 100k beans
+ */
+public class TorrentSnapshot {
+    /**
+     * the fields a snapshot is built from
+     */
+    public static final Set<TorrentField> FIELDS = Collections.unmodifiableSet(EnumSet.of(TorrentField.ID, TorrentField.RATE_DOWNLOAD, TorrentField.RATE_UPLOAD, TorrentField.TOTAL_SIZE, TorrentField.PERCENT_DONE, TorrentField.STATUS));
+
+    /**
+     * status values of transmission, index of getStatusCounts
+     */
+    public static final int STATUS_COUNT = 8;
+
+    private final int size;
+    private final long[] id;
+    private final long[] rateDownload;
+    private final long[] rateUpload;
+    private final long[] totalSize;
+    private final double[] percentDone;
+    private final int[] status;
+
+    private TorrentSnapshot(int size, long[] id, long[] rateDownload, long[] rateUpload, long[] totalSize, double[] percentDone, int[] status) {
+        this.size = size;
+        this.id = id;
+        this.rateDownload = rateDownload;
+        this.rateUpload = rateUpload;
+        this.totalSize = totalSize;
+        this.percentDone = percentDone;
+        this.status = status;
+    }
+
+    public static TorrentSnapshot of(List<Torrent> torrents) {
+        Builder builder = new Builder(torrents.size());
+        for (int i = 0; i < torrents.size(); i++)
+            builder.accept(torrents.get(i));
+        return builder.build();
+    }
+
+    /**
+     * request only FIELDS and stream the torrents into the columns, no list of Torrent is kept
+     */
+    public static TorrentSnapshot fetch(TransmissionClient client) throws DownloaderException {
+        Builder builder = new Builder(64);
+        client.getTorrents(FIELDS, builder);
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * row of the torrent with the given id, -1 if it is not in the snapshot
+     */
+    public int indexOf(long torrentId) {
+        int row = Arrays.binarySearch(id, 0, size, torrentId);
+        return row < 0 ? -1 : row;
+    }
+
+    public long getId(int row) {
+        check(row);
+        return id[row];
+    }
+
+    public long getRateDownload(int row) {
+        check(row);
+        return rateDownload[row];
+    }
+
+    public long getRateUpload(int row) {
+        check(row);
+        return rateUpload[row];
+    }
+
+    public long getTotalSize(int row) {
+        check(row);
+        return totalSize[row];
+    }
+
+    public double getPercentDone(int row) {
+        check(row);
+        return percentDone[row];
+    }
+
+    public int getStatus(int row) {
+        check(row);
+        return status[row];
+    }
+
+    public long getTotalRateDownload() {
+        long sum = 0;
+        for (int i = 0; i < size; i++)
+            sum += rateDownload[i];
+        return sum;
+    }
+
+    public long getTotalRateUpload() {
+        long sum = 0;
+        for (int i = 0; i < size; i++)
+            sum += rateUpload[i];
+        return sum;
+    }
+
+    public long getTotalSize() {
+        long sum = 0;
+        for (int i = 0; i < size; i++)
+            sum += totalSize[i];
+        return sum;
+    }
+
+    /**
+     * bytes already downloaded, estimated from totalSize and percentDone of every torrent
+     */
+    public long getDoneSize() {
+        double sum = 0;
+        for (int i = 0; i < size; i++)
+            sum += totalSize[i] * percentDone[i];
+        return (long) sum;
+    }
+
+    /**
+     * progress of all torrents together weighted by size, 1 for an empty snapshot
+     */
+    public double getPercentDone() {
+        long total = getTotalSize();
+        return total == 0 ? 1 : (double) getDoneSize() / total;
+    }
+
+    public int countStatus(int value) {
+        int count = 0;
+        for (int i = 0; i < size; i++)
+            if (status[i] == value)
+                count++;
+        return count;
+    }
+
+    /**
+     * number of torrents per status in one pass, unknown status values are not counted
+     */
+    public int[] getStatusCounts() {
+        int[] counts = new int[STATUS_COUNT];
+        for (int i = 0; i < size; i++) {
+            int value = status[i];
+            if (value >= 0 && value < STATUS_COUNT)
+                counts[value]++;
+        }
+        return counts;
+    }
+
+    /**
+     * torrents that are transferring in either direction
+     */
+    public int countTransferring() {
+        int count = 0;
+        for (int i = 0; i < size; i++)
+            if (rateDownload[i] > 0 || rateUpload[i] > 0)
+                count++;
+        return count;
+    }
+
+    private void check(int row) {
+        if (row < 0 || row >= size)
+            throw new IndexOutOfBoundsException("row " + row + " of " + size);
+    }
+
+    /**
+     * collects torrents into growing columns, it can be passed to TransmissionClient.getTorrents directly
+     */
+    public static class Builder implements Consumer<Torrent> {
+        private int size;
+        private long[] id;
+        private long[] rateDownload;
+        private long[] rateUpload;
+        private long[] totalSize;
+        private double[] percentDone;
+        private int[] status;
+
+        public Builder(int capacity) {
+            capacity = Math.max(capacity, 1);
+            id = new long[capacity];
+            rateDownload = new long[capacity];
+            rateUpload = new long[capacity];
+            totalSize = new long[capacity];
+            percentDone = new double[capacity];
+            status = new int[capacity];
+        }
+
+        @Override
+        public void accept(Torrent torrent) {
+            add(torrent.getId(), torrent.getRateDownload(), torrent.getRateUpload(), torrent.getTotalSize(), torrent.getPercentDone(), torrent.getStatus());
+        }
+
+        public Builder add(long torrentId, long download, long upload, long total, double done, int value) {
+            if (size == id.length)
+                grow();
+            id[size] = torrentId;
+            rateDownload[size] = download;
+            rateUpload[size] = upload;
+            totalSize[size] = total;
+            percentDone[size] = done;
+            status[size] = value;
+            size++;
+            return this;
+        }
+
+        /**
+         * the builder must not be used afterwards, its arrays are handed to the snapshot
+         */
+        public TorrentSnapshot build() {
+            sortById();
+            return new TorrentSnapshot(size, id, rateDownload, rateUpload, totalSize, percentDone, status);
+        }
+
+        private void grow() {
+            int capacity = id.length * 2;
+            id = Arrays.copyOf(id, capacity);
+            rateDownload = Arrays.copyOf(rateDownload, capacity);
+            rateUpload = Arrays.copyOf(rateUpload, capacity);
+            totalSize = Arrays.copyOf(totalSize, capacity);
+            percentDone = Arrays.copyOf(percentDone, capacity);
+            status = Arrays.copyOf(status, capacity);
+        }
+
+        /**
+         * transmission usually returns torrents by id already, the columns are only permuted when it did not
+         */
+        private void sortById() {
+            boolean sorted = true;
+            for (int i = 1; i < size && sorted; i++)
+                sorted = id[i - 1] <= id[i];
+            if (sorted)
+                return;
+
+            //ids are positive ints in transmission, the row fits in the low half of the key
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++)
+                keys[i] = id[i] << 32 | i;
+            Arrays.sort(keys);
+
+            long[] id = new long[size];
+            long[] rateDownload = new long[size];
+            long[] rateUpload = new long[size];
+            long[] totalSize = new long[size];
+            double[] percentDone = new double[size];
+            int[] status = new int[size];
+            for (int i = 0; i < size; i++) {
+                int row = (int) keys[i];
+                id[i] = this.id[row];
+                rateDownload[i] = this.rateDownload[row];
+                rateUpload[i] = this.rateUpload[row];
+                totalSize[i] = this.totalSize[row];
+                percentDone[i] = this.percentDone[row];
+                status[i] = this.status[row];
+            }
+            this.id = id;
+            this.rateDownload = rateDownload;
+            this.rateUpload = rateUpload;
+            this.totalSize = totalSize;
+            this.percentDone = percentDone;
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.batch;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Results of a whole TorrentImporter run with its throughput
+ */
+public class ImportReport {
+    private final List<ImportResult> results;
+    private final long nanos;
+    private int added;
+    private int duplicates;
+    private int skipped;
+    private int failed;
+    private long bytes;
+
+    ImportReport(List<ImportResult> results, long nanos) {
+        this.results = Collections.unmodifiableList(results);
+        this.nanos = nanos;
+        for (ImportResult result : results) {
+            bytes += result.getBytes();
+            switch (result.getStatus()) {
+                case ADDED:
+                    added++;
+                    break;
+                case DUPLICATE:
+                    duplicates++;
+                    break;
+                case SKIPPED:
+                    skipped++;
+                    break;
+                default:
+                    failed++;
+            }
+        }
+    }
+
+    public List<ImportResult> getResults() {
+        return results;
+    }
+
+    public int getAdded() {
+        return added;
+    }
+
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * duplicates found locally before any upload
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * bytes of all .torrent files sent
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getMillis() {
+        return nanos / 1000000;
+    }
+
+    public double getFilesPerSecond() {
+        return nanos == 0 ? 0 : results.size() * 1e9 / nanos;
+    }
+
+    public double getBytesPerSecond() {
+        return nanos == 0 ? 0 : bytes * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return results.size() + " files, " + added + " added, " + duplicates + " duplicates, " + skipped + " skipped, " + failed + " failed in " + getMillis() + "ms";
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.batch;
+
+import com.lixiaocong.downloader.transmission4j.response.Torrent;
+
+import java.nio.file.Path;
+
+/**
+ * Outcome of adding one .torrent file
+ */
+public class ImportResult {
+    public enum Status {
+        ADDED,
+        DUPLICATE,
+        SKIPPED,    //known to the TorrentHashIndex, nothing was uploaded
+        FAILED
+    }
+
+    private final Path path;
+    private final Status status;
+    private final Torrent torrent;
+    private final String error;
+    private final long bytes;
+    private final long nanos;
+
+    ImportResult(Path path, Status status, Torrent torrent, String error, long bytes, long nanos) {
+        this.path = path;
+        this.status = status;
+        this.torrent = torrent;
+        this.error = error;
+        this.bytes = bytes;
+        this.nanos = nanos;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * id, name and hashString of the added or already present torrent, null if the add failed
+     * a skipped torrent has the id from the index, 0 if another add of it was still in flight
+     */
+    public Torrent getTorrent() {
+        return torrent;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * size of the .torrent file
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * time from reading the file to the response
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    @Override
+    public String toString() {
+        return path + " " + status + (error == null ? "" : " " + error);
+    }
+}
@@ -0,0 +1,280 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.batch;
+
+import com.lixiaocong.downloader.DownloaderException;
+import com.lixiaocong.downloader.transmission4j.TransmissionClient;
+import com.lixiaocong.downloader.transmission4j.metainfo.Metainfo;
+import com.lixiaocong.downloader.transmission4j.response.Torrent;
+import com.lixiaocong.downloader.transmission4j.response.TorrentAddResponse;
+import com.lixiaocong.downloader.transmission4j.sync.TorrentHashIndex;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Adds every .torrent file below a directory, at most window files are read and sent at the same time
+ * each worker streams its file into the request body, so memory does not grow with the size of the directory
+ */
+public class TorrentImporter implements Closeable {
+    private static Log log = LogFactory.getLog(TorrentImporter.class.getName());
+
+    private final TransmissionClient client;
+    private final int window;
+    private final ExecutorService workers;
+    private volatile boolean paused;
+    private volatile TorrentHashIndex hashIndex;
+
+    /**
+     * @param window max torrent-add requests in flight, the client should have at least as many connections
+     */
+    public TorrentImporter(TransmissionClient client, int window) {
+        if (window <= 0)
+            throw new IllegalArgumentException("window must be positive");
+        this.client = client;
+        this.window = window;
+        AtomicInteger count = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(window, r -> {
+            Thread thread = new Thread(r, "transmission-importer-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * add the torrents without starting them
+     */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * skip files whose info hash is in hashIndex and record the added ones in it, null uploads every file
+     * refresh the index before the import so it knows what the daemon has
+     */
+    public void setHashIndex(TorrentHashIndex hashIndex) {
+        this.hashIndex = hashIndex;
+    }
+
+    public TorrentHashIndex getHashIndex() {
+        return hashIndex;
+    }
+
+    public ImportReport importDirectory(Path directory) throws DownloaderException {
+        return importDirectory(directory, result -> {
+        });
+    }
+
+    /**
+     * walk directory and add every file ending with .torrent, progress is called from the workers once per file
+     * files that never started because the importer was closed are reported as FAILED from the closing thread
+     * failures of single files are in the report, only an unreadable directory fails the whole import
+     */
+    public ImportReport importDirectory(Path directory, Consumer<ImportResult> progress) throws DownloaderException {
+        long start = System.nanoTime();
+        ImportRun run = new ImportRun(progress);
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            Iterator<Path> iterator = files.filter(path -> path.toString().endsWith(".torrent") && Files.isRegularFile(path)).iterator();
+            while (iterator.hasNext()) {
+                Path path = iterator.next();
+                run.inFlight.acquire();
+                ImportTask task = new ImportTask(run, path);
+                try {
+                    workers.execute(task);
+                } catch (RejectedExecutionException e) {
+                    task.abandon();
+                }
+            }
+            //every permit is back once the last file is done
+            run.inFlight.acquire(window);
+            run.inFlight.release(window);
+        } catch (IOException | UncheckedIOException e) {
+            log.error(e);
+            throw new DownloaderException("walk " + directory + " failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DownloaderException("import of " + directory + " interrupted");
+        }
+
+        ImportReport report = new ImportReport(new ArrayList<>(run.results), System.nanoTime() - start);
+        log.info("import " + directory + ": " + report);
+        return report;
+    }
+
+    /**
+     * the state of one importDirectory call, the settings are read once at its start
+     */
+    private class ImportRun {
+        private final List<ImportResult> results = Collections.synchronizedList(new ArrayList<>());
+        private final Semaphore inFlight = new Semaphore(window);
+        private final Consumer<ImportResult> progress;
+        private final boolean paused = TorrentImporter.this.paused;
+        private final TorrentHashIndex hashIndex = TorrentImporter.this.hashIndex;
+
+        private ImportRun(Consumer<ImportResult> progress) {
+            this.progress = progress;
+        }
+
+        private void record(ImportResult result) {
+            results.add(result);
+            try {
+                progress.accept(result);
+            } catch (RuntimeException e) {
+                log.error("progress of " + result.getPath() + " exception:", e);
+            }
+        }
+    }
+
+    /**
+     * one file, it gives its permit back whether it runs or is abandoned
+     */
+    private class ImportTask implements Runnable {
+        private final ImportRun run;
+        private final Path path;
+
+        private ImportTask(ImportRun run, Path path) {
+            this.run = run;
+            this.path = path;
+        }
+
+        @Override
+        public void run() {
+            try {
+                run.record(importFile(path, run.paused, run.hashIndex));
+            } finally {
+                run.inFlight.release();
+            }
+        }
+
+        private void abandon() {
+            try {
+                run.record(new ImportResult(path, ImportResult.Status.FAILED, null, "importer is closed", 0, 0));
+            } finally {
+                run.inFlight.release();
+            }
+        }
+    }
+
+    /**
+     * a file that fails in any way ends up in the report as FAILED
+     */
+    private ImportResult importFile(Path path, boolean paused, TorrentHashIndex hashIndex) {
+        long start = System.nanoTime();
+        try {
+            return hashIndex == null ? add(path, paused) : addIfAbsent(path, paused, hashIndex);
+        } catch (RuntimeException e) {
+            log.error("import " + path + " exception:", e);
+            return new ImportResult(path, ImportResult.Status.FAILED, null, String.valueOf(e), 0, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * the metainfo is parsed locally first, a known info hash costs no upload
+     */
+    private ImportResult addIfAbsent(Path path, boolean paused, TorrentHashIndex hashIndex) {
+        long start = System.nanoTime();
+        Metainfo metainfo;
+        try {
+            metainfo = Metainfo.read(path);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("import " + path + " failed: " + e.getMessage());
+            return new ImportResult(path, ImportResult.Status.FAILED, null, e.getMessage(), 0, System.nanoTime() - start);
+        }
+
+        String hash = metainfo.getInfoHash();
+        if (!hashIndex.claim(hash)) {
+            Torrent known = new Torrent();
+            Long id = hashIndex.getId(hash);
+            known.setId(id == null ? 0 : id);
+            known.setName(metainfo.getName());
+            known.setHashString(hash);
+            return new ImportResult(path, ImportResult.Status.SKIPPED, known, null, 0, System.nanoTime() - start);
+        }
+
+        //a claim left behind would skip the file in every later import
+        ImportResult result = null;
+        try {
+            result = add(path, paused);
+        } finally {
+            if (result != null && result.getTorrent() != null)
+                hashIndex.put(hash, result.getTorrent().getId());
+            else
+                hashIndex.release(hash);
+        }
+        return result;
+    }
+
+    private ImportResult add(Path path, boolean paused) {
+        long start = System.nanoTime();
+        long bytes = 0;
+        try {
+            bytes = Files.size(path);
+            TorrentAddResponse response = client.addByMetainfo(path, paused);
+            long nanos = System.nanoTime() - start;
+            if (response.getArguments() != null && response.getArguments().isDuplicate())
+                return new ImportResult(path, ImportResult.Status.DUPLICATE, response.getArguments().getDuplicate(), null, bytes, nanos);
+            return new ImportResult(path, ImportResult.Status.ADDED, response.getArguments() == null ? null : response.getArguments().getAdded(), null, bytes, nanos);
+        } catch (IOException | DownloaderException e) {
+            log.warn("import " + path + " failed: " + e.getMessage());
+            return new ImportResult(path, ImportResult.Status.FAILED, null, e.getMessage(), bytes, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void close() {
+        //queued files never run, their imports must not wait for them
+        for (Runnable task : workers.shutdownNow()) {
+            if (task instanceof ImportTask)
+                ((ImportTask) task).abandon();
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.batch;
+
+import com.lixiaocong.downloader.DownloaderException;
+import com.lixiaocong.downloader.transmission4j.TransmissionClient;
+import com.lixiaocong.downloader.transmission4j.request.TorrentField;
+import com.lixiaocong.downloader.transmission4j.request.TransmissionRequest;
+import com.lixiaocong.downloader.transmission4j.request.TransmissionRequestFactory;
+import com.lixiaocong.downloader.transmission4j.response.Torrent;
+import com.lixiaocong.downloader.transmission4j.response.TorrentGetResponse;
+import com.lixiaocong.downloader.transmission4j.response.TransmissionResponse;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalesces single torrent start, stop and get calls issued within a short window into one request per method
+ * get batches are sent in parallel over the pooled connections of the client, each one tagged so its response can be checked
+ * start and stop batches go out one after another in the order they were flushed, so a torrent ends in the state last asked for
+ */
+public class TransmissionBatcher implements Closeable {
+    private static Log log = LogFactory.getLog(TransmissionBatcher.class.getName());
+
+    private final TransmissionClient client;
+    private final long window;
+    private final Set<TorrentField> fields;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService sender;
+    private final ExecutorService commandSender;    //start and stop, one thread keeps their order
+    private final AtomicInteger tags = new AtomicInteger();
+    private boolean closed;
+
+    private Map<Integer, CompletableFuture<Void>> starts = new HashMap<>();
+    private Map<Integer, CompletableFuture<Void>> stops = new HashMap<>();
+    private Map<Integer, CompletableFuture<Torrent>> gets = new HashMap<>();
+
+    /**
+     * @param window      milliseconds a call waits for others to join its batch
+     * @param parallelism max batches in flight
+     */
+    public TransmissionBatcher(TransmissionClient client, long window, int parallelism) {
+        this(client, window, parallelism, TorrentField.FULL);
+    }
+
+    public TransmissionBatcher(TransmissionClient client, long window, int parallelism, Set<TorrentField> fields) {
+        this.client = client;
+        this.window = window;
+        EnumSet<TorrentField> set = EnumSet.copyOf(fields);
+        set.add(TorrentField.ID);   //responses are matched to the calls by id
+        this.fields = Collections.unmodifiableSet(set);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "transmission-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sender = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "transmission-batcher-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.commandSender = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "transmission-batcher-command");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * a start queued after a stop of the same torrent wins, as if both were sent in order
+     * the future of the stop completes with the outcome of the start
+     */
+    public synchronized CompletableFuture<Void> start(int id) {
+        if (closed)
+            return closedFuture();
+        CompletableFuture<Void> future = starts.computeIfAbsent(id, k -> new CompletableFuture<>());
+        supersede(stops.remove(id), future);
+        if (starts.size() == 1)
+            scheduler.schedule(this::flushStarts, window, TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    public synchronized CompletableFuture<Void> stop(int id) {
+        if (closed)
+            return closedFuture();
+        CompletableFuture<Void> future = stops.computeIfAbsent(id, k -> new CompletableFuture<>());
+        supersede(starts.remove(id), future);
+        if (stops.size() == 1)
+            scheduler.schedule(this::flushStops, window, TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    private static void supersede(CompletableFuture<Void> superseded, CompletableFuture<Void> by) {
+        if (superseded == null)
+            return;
+        by.whenComplete((value, e) -> {
+            if (e == null)
+                superseded.complete(null);
+            else
+                superseded.completeExceptionally(e);
+        });
+    }
+
+    /**
+     * completes with null if the torrent does not exist
+     */
+    public synchronized CompletableFuture<Torrent> get(int id) {
+        if (closed)
+            return closedFuture();
+        CompletableFuture<Torrent> future = gets.computeIfAbsent(id, k -> new CompletableFuture<>());
+        if (gets.size() == 1)
+            scheduler.schedule(this::flushGets, window, TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    private void flushStarts() {
+        Map<Integer, CompletableFuture<Void>> batch;
+        synchronized (this) {
+            batch = starts;
+            starts = new HashMap<>();
+        }
+        if (!batch.isEmpty())
+            submit(commandSender, batch, () -> send(TransmissionRequestFactory.getStartRequest(new ArrayList<>(batch.keySet())), batch));
+    }
+
+    private void flushStops() {
+        Map<Integer, CompletableFuture<Void>> batch;
+        synchronized (this) {
+            batch = stops;
+            stops = new HashMap<>();
+        }
+        if (!batch.isEmpty())
+            submit(commandSender, batch, () -> send(TransmissionRequestFactory.getStopRequest(new ArrayList<>(batch.keySet())), batch));
+    }
+
+    private void flushGets() {
+        Map<Integer, CompletableFuture<Torrent>> batch;
+        synchronized (this) {
+            batch = gets;
+            gets = new HashMap<>();
+        }
+        if (!batch.isEmpty())
+            submit(sender, batch, () -> sendGet(batch));
+    }
+
+    private static <T> void submit(ExecutorService executor, Map<Integer, CompletableFuture<T>> batch, Runnable send) {
+        try {
+            executor.execute(send);
+        } catch (RejectedExecutionException e) {
+            for (CompletableFuture<T> future : batch.values())
+                future.completeExceptionally(new IllegalStateException("batcher is closed"));
+        }
+    }
+
+    private static <T> CompletableFuture<T> closedFuture() {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(new IllegalStateException("batcher is closed"));
+        return future;
+    }
+
+    private void send(TransmissionRequest request, Map<Integer, CompletableFuture<Void>> batch) {
+        request.setTag(tags.incrementAndGet());
+        try {
+            TransmissionResponse response = client.execute(request, TransmissionResponse.class);
+            if (!"success".equals(response.getResult()))
+                throw new DownloaderException(request.getMethod() + " failed: " + response.getResult());
+            for (CompletableFuture<Void> future : batch.values())
+                future.complete(null);
+        } catch (DownloaderException | RuntimeException e) {
+            log.warn(request.getMethod() + " batch of " + batch.size() + " failed: " + e.getMessage());
+            for (CompletableFuture<Void> future : batch.values())
+                future.completeExceptionally(e);
+        }
+    }
+
+    private void sendGet(Map<Integer, CompletableFuture<Torrent>> batch) {
+        TransmissionRequest request = TransmissionRequestFactory.getGetRequest(new ArrayList<>(batch.keySet()), fields);
+        request.setTag(tags.incrementAndGet());
+        try {
+            List<Torrent> torrents = client.execute(request, TorrentGetResponse.class).getArguments().getTorrents();
+            for (Torrent torrent : torrents) {
+                CompletableFuture<Torrent> future = batch.get((int) torrent.getId());
+                if (future != null)
+                    future.complete(torrent);
+            }
+            for (CompletableFuture<Torrent> future : batch.values())
+                future.complete(null);  //no-op for the torrents found above
+        } catch (DownloaderException | RuntimeException e) {
+            log.warn("torrent-get batch of " + batch.size() + " failed: " + e.getMessage());
+            for (CompletableFuture<Torrent> future : batch.values())
+                future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * send the pending batches at once
+     */
+    public void flush() {
+        flushStarts();
+        flushStops();
+        flushGets();
+    }
+
+    /**
+     * send the pending batches, later calls fail at once
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        flush();
+        scheduler.shutdown();
+        sender.shutdown();
+        commandSender.shutdown();
+    }
+}
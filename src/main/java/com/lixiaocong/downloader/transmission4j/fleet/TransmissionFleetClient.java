@@ -0,0 +1,233 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.fleet;
+
+import com.lixiaocong.downloader.DownloadTask;
+import com.lixiaocong.downloader.transmission4j.TransmissionAsyncClient;
+import com.lixiaocong.downloader.transmission4j.TransmissionClientConfig;
+import com.lixiaocong.downloader.transmission4j.analytics.TorrentSnapshot;
+import com.lixiaocong.downloader.transmission4j.request.TorrentField;
+import com.lixiaocong.downloader.transmission4j.request.TransmissionRequestFactory;
+import com.lixiaocong.downloader.transmission4j.response.SessionStatsResponseArguments;
+import com.lixiaocong.downloader.transmission4j.response.TorrentGetResponse;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Client of many transmission daemons, requests are sent to all nodes in parallel
+ * at most maxConcurrency nodes are queried at the same time and every node has its own deadline
+ * nodes added by uri share one I/O reactor and connection pool, each of them keeps its own session id
+ */
+public class TransmissionFleetClient implements Closeable {
+    private static Log log = LogFactory.getLog(TransmissionFleetClient.class.getName());
+
+    private final Map<String, TransmissionAsyncClient> nodes = new ConcurrentSkipListMap<>();
+    private final TransmissionClientConfig config;
+    private final int maxConcurrency;
+    private final long nodeTimeout;
+    private final ScheduledExecutorService scheduler;
+    private final CloseableHttpAsyncClient httpClient;
+
+    /**
+     * @param maxConcurrency max nodes with a request in flight
+     * @param nodeTimeout    deadline of one node in milliseconds
+     * the maxTotal of config bounds the connections of the whole fleet, it should be at least maxConcurrency
+     */
+    public TransmissionFleetClient(int maxConcurrency, long nodeTimeout) {
+        this(maxConcurrency, nodeTimeout, new TransmissionClientConfig());
+    }
+
+    public TransmissionFleetClient(int maxConcurrency, long nodeTimeout, TransmissionClientConfig config) {
+        if (maxConcurrency <= 0)
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        if (nodeTimeout <= 0)
+            throw new IllegalArgumentException("nodeTimeout must be positive");
+        this.maxConcurrency = maxConcurrency;
+        this.nodeTimeout = nodeTimeout;
+        this.config = config;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "transmission-fleet-deadline");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = TransmissionAsyncClient.createHttpClient(config);
+    }
+
+    public void addNode(String node, String username, String password, String uri) {
+        addNode(node, new TransmissionAsyncClient(username, password, uri, config, httpClient));
+    }
+
+    public void addNode(String node, TransmissionAsyncClient client) {
+        TransmissionAsyncClient old = nodes.put(node, client);
+        if (old != null)
+            closeQuietly(node, old);
+    }
+
+    public void removeNode(String node) {
+        TransmissionAsyncClient old = nodes.remove(node);
+        if (old != null)
+            closeQuietly(node, old);
+    }
+
+    public Map<String, TransmissionAsyncClient> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * all torrents of every node, tagged with the node name
+     */
+    public CompletableFuture<FleetResult<List<DownloadTask>>> get() {
+        return fanOut(TransmissionAsyncClient::get);
+    }
+
+    public CompletableFuture<FleetResult<List<DownloadTask>>> get(Set<TorrentField> fields) {
+        return fanOut(client -> client.get(null, fields));
+    }
+
+    /**
+     * a columnar snapshot of every node, only TorrentSnapshot.FIELDS are requested
+     */
+    public CompletableFuture<FleetResult<TorrentSnapshot>> snapshot() {
+        return fanOut(client -> TransmissionAsyncClient.thenApply(client.execute(TransmissionRequestFactory.getgetAllRequest(TorrentSnapshot.FIELDS), TorrentGetResponse.class),
+                response -> TorrentSnapshot.of(response.getArguments().getTorrents())));
+    }
+
+    public CompletableFuture<FleetResult<SessionStatsResponseArguments>> sessionStats() {
+        return fanOut(client -> TransmissionAsyncClient.thenApply(client.sessionStats(), response -> response.getArguments()));
+    }
+
+    /**
+     * send one call to every node, the returned future never fails, errors of a node are kept in its result
+     * a node that misses its deadline gets its call cancelled, the futures of TransmissionAsyncClient abort the request then
+     * its slot is only given to the next node once the call is over
+     */
+    public <T> CompletableFuture<FleetResult<T>> fanOut(Function<TransmissionAsyncClient, CompletableFuture<T>> call) {
+        FleetResult<T> result = new FleetResult<>();
+        CompletableFuture<FleetResult<T>> done = new CompletableFuture<>();
+        Queue<Map.Entry<String, TransmissionAsyncClient>> pending = new ConcurrentLinkedQueue<>(nodes.entrySet());
+        AtomicInteger remaining = new AtomicInteger(pending.size());
+        if (pending.isEmpty()) {
+            done.complete(result);
+            return done;
+        }
+
+        int initial = Math.min(maxConcurrency, pending.size());
+        for (int i = 0; i < initial; i++)
+            next(pending, call, result, remaining, done);
+        return done;
+    }
+
+    private <T> void next(Queue<Map.Entry<String, TransmissionAsyncClient>> pending, Function<TransmissionAsyncClient, CompletableFuture<T>> call,
+                          FleetResult<T> result, AtomicInteger remaining, CompletableFuture<FleetResult<T>> done) {
+        Map.Entry<String, TransmissionAsyncClient> entry = pending.poll();
+        if (entry == null)
+            return;
+
+        String node = entry.getKey();
+        CompletableFuture<T> future;
+        try {
+            future = Objects.requireNonNull(call.apply(entry.getValue()), "call returned no future");
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        withDeadline(node, future).whenComplete((value, e) -> {
+            try {
+                if (e == null) {
+                    result.succeed(node, value);
+                } else {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    log.warn("node " + node + " failed: " + cause.getMessage());
+                    result.fail(node, cause);
+                }
+            } finally {
+                //whenComplete swallows whatever is thrown here, done must complete anyway
+                if (remaining.decrementAndGet() == 0)
+                    done.complete(result);
+            }
+        });
+        //a timed out call may still be running, the slot is free when it is really over
+        future.whenComplete((value, e) -> next(pending, call, result, remaining, done));
+    }
+
+    private <T> CompletableFuture<T> withDeadline(String node, CompletableFuture<T> future) {
+        CompletableFuture<T> timed = new CompletableFuture<>();
+        ScheduledFuture<?> deadline = scheduler.schedule(() -> {
+            timed.completeExceptionally(new TimeoutException("node " + node + " timeout after " + nodeTimeout + "ms"));
+            future.cancel(true);
+        }, nodeTimeout, TimeUnit.MILLISECONDS);
+        future.whenComplete((value, e) -> {
+            deadline.cancel(false);
+            if (e == null)
+                timed.complete(value);
+            else
+                timed.completeExceptionally(e);
+        });
+        return timed;
+    }
+
+    private void closeQuietly(String node, TransmissionAsyncClient client) {
+        try {
+            client.close();
+        } catch (IOException e) {
+            log.warn("close node " + node + " exception:", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        scheduler.shutdownNow();
+        for (Map.Entry<String, TransmissionAsyncClient> entry : nodes.entrySet())
+            closeQuietly(entry.getKey(), entry.getValue());
+        nodes.clear();
+        httpClient.close();
+    }
+}
@@ -0,0 +1,296 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.metainfo;
+
+import com.lixiaocong.downloader.transmission4j.response.TorrentFile;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single pass bencode reader over a ByteBuffer with absolute gets, only the values Metainfo needs become objects
+ * pieces and every other value are skipped without copying, the info dictionary is hashed in place
+ */
+class BencodeParser {
+    private static final byte[] INFO = "info".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NAME = "name".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NAME_UTF8 = "name.utf-8".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LENGTH = "length".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FILES = "files".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PATH = "path".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PATH_UTF8 = "path.utf-8".getBytes(StandardCharsets.US_ASCII);
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final int MAX_DEPTH = 64;
+
+    private final ByteBuffer buffer;
+    private final int limit;
+    private int pos;
+
+    //values of the info dictionary
+    private String name;
+    private String nameUtf8;
+    private long length = -1;
+    private List<TorrentFile> files;
+
+    BencodeParser(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.limit = buffer.limit();
+        this.pos = buffer.position();
+    }
+
+    Metainfo parse() {
+        expect('d');
+        int infoStart = -1;
+        int infoEnd = -1;
+        while (peek() != 'e') {
+            int keyStart = stringStart();
+            int keyLength = pos - keyStart;
+            if (infoStart < 0 && equals(keyStart, keyLength, INFO)) {
+                infoStart = pos;
+                parseInfo();
+                infoEnd = pos;
+            } else {
+                skip(0);
+            }
+        }
+        if (infoStart < 0)
+            throw error("no info dictionary");
+
+        String torrentName = nameUtf8 != null ? nameUtf8 : name;
+        if (torrentName == null)
+            throw error("info dictionary without name");
+        List<TorrentFile> list = new ArrayList<>(files == null ? 1 : files.size());
+        long totalSize = 0;
+        if (files == null) {
+            if (length < 0)
+                throw error("info dictionary without length or files");
+            list.add(file(torrentName, length));
+            totalSize = length;
+        } else {
+            //multi file names are relative to the torrent directory
+            for (TorrentFile file : files) {
+                file.setName(torrentName + "/" + file.getName());
+                list.add(file);
+                totalSize += file.getLength();
+            }
+        }
+        return new Metainfo(sha1(infoStart, infoEnd), torrentName, totalSize, list);
+    }
+
+    private void parseInfo() {
+        expect('d');
+        while (peek() != 'e') {
+            int keyStart = stringStart();
+            int keyLength = pos - keyStart;
+            if (equals(keyStart, keyLength, NAME)) {
+                name = readString();
+            } else if (equals(keyStart, keyLength, NAME_UTF8)) {
+                nameUtf8 = readString();
+            } else if (equals(keyStart, keyLength, LENGTH)) {
+                length = readInteger();
+            } else if (equals(keyStart, keyLength, FILES)) {
+                parseFiles();
+            } else {
+                skip(0);
+            }
+        }
+        pos++;
+    }
+
+    private void parseFiles() {
+        files = new ArrayList<>();
+        expect('l');
+        while (peek() != 'e') {
+            expect('d');
+            long fileLength = -1;
+            String path = null;
+            String pathUtf8 = null;
+            while (peek() != 'e') {
+                int keyStart = stringStart();
+                int keyLength = pos - keyStart;
+                if (equals(keyStart, keyLength, LENGTH))
+                    fileLength = readInteger();
+                else if (equals(keyStart, keyLength, PATH))
+                    path = readPath();
+                else if (equals(keyStart, keyLength, PATH_UTF8))
+                    pathUtf8 = readPath();
+                else
+                    skip(0);
+            }
+            pos++;
+            if (fileLength < 0 || (path == null && pathUtf8 == null))
+                throw error("file without length or path");
+            files.add(file(pathUtf8 != null ? pathUtf8 : path, fileLength));
+        }
+        pos++;
+    }
+
+    private String readPath() {
+        StringBuilder path = new StringBuilder();
+        expect('l');
+        while (peek() != 'e') {
+            if (path.length() > 0)
+                path.append('/');
+            path.append(readString());
+        }
+        pos++;
+        return path.toString();
+    }
+
+    private static TorrentFile file(String name, long length) {
+        TorrentFile file = new TorrentFile();
+        file.setName(name);
+        file.setLength(length);
+        return file;
+    }
+
+    /**
+     * skip one value of any type, depth guards against stack overflow on hostile input
+     */
+    private void skip(int depth) {
+        if (depth > MAX_DEPTH)
+            throw error("nested too deep");
+        byte b = peek();
+        if (b == 'i') {
+            readInteger();
+        } else if (b == 'l' || b == 'd') {
+            pos++;
+            while (peek() != 'e') {
+                if (b == 'd')
+                    stringStart();
+                skip(depth + 1);
+            }
+            pos++;
+        } else {
+            stringStart();
+        }
+    }
+
+    private long readInteger() {
+        expect('i');
+        boolean negative = peek() == '-';
+        if (negative)
+            pos++;
+        long value = 0;
+        int digits = 0;
+        while (peek() != 'e') {
+            byte b = buffer.get(pos++);
+            if (b < '0' || b > '9' || ++digits > 18)
+                throw error("invalid integer");
+            value = value * 10 + (b - '0');
+        }
+        if (digits == 0)
+            throw error("empty integer");
+        pos++;
+        return negative ? -value : value;
+    }
+
+    private String readString() {
+        int start = stringStart();
+        int length = pos - start;
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++)
+            bytes[i] = buffer.get(start + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * read the length prefix of a byte string and move past its bytes, returns where the bytes begin
+     */
+    private int stringStart() {
+        long length = 0;
+        int digits = 0;
+        byte b;
+        while ((b = peek()) != ':') {
+            if (b < '0' || b > '9' || ++digits > 10)
+                throw error("invalid string length");
+            length = length * 10 + (b - '0');
+            pos++;
+        }
+        if (digits == 0)
+            throw error("invalid string length");
+        pos++;
+        if (length > limit - pos)
+            throw error("string longer than the data");
+        int start = pos;
+        pos += (int) length;
+        return start;
+    }
+
+    private boolean equals(int start, int length, byte[] key) {
+        if (length != key.length)
+            return false;
+        for (int i = 0; i < length; i++)
+            if (buffer.get(start + i) != key[i])
+                return false;
+        return true;
+    }
+
+    private void expect(char c) {
+        if (peek() != c)
+            throw error("expected '" + c + "'");
+        pos++;
+    }
+
+    private byte peek() {
+        if (pos >= limit)
+            throw error("unexpected end");
+        return buffer.get(pos);
+    }
+
+    private String sha1(int start, int end) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e.getMessage());
+        }
+        ByteBuffer info = buffer.duplicate();
+        info.limit(end);
+        info.position(start);
+        digest.update(info);
+        byte[] hash = digest.digest();
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("invalid metainfo at " + pos + ": " + message);
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.metainfo;
+
+import com.lixiaocong.downloader.transmission4j.response.TorrentFile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What a .torrent file says about its torrent, read locally without asking transmission
+ * infoHash is the hex sha1 of the bencoded info dictionary, the same as hashString in torrent-get
+ */
+public class Metainfo {
+    private static final long MAP_THRESHOLD = 1024 * 1024;
+
+    private final String infoHash;
+    private final String name;
+    private final long totalSize;
+    private final List<TorrentFile> files;
+
+    Metainfo(String infoHash, String name, long totalSize, List<TorrentFile> files) {
+        this.infoHash = infoHash;
+        this.name = name;
+        this.totalSize = totalSize;
+        this.files = Collections.unmodifiableList(files);
+    }
+
+    /**
+     * @throws IllegalArgumentException if bytes is not a bencoded torrent
+     */
+    public static Metainfo parse(byte[] bytes) {
+        return parse(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * the buffer is read from its position to its limit, its position is not changed
+     */
+    public static Metainfo parse(ByteBuffer buffer) {
+        return new BencodeParser(buffer).parse();
+    }
+
+    /**
+     * files of 1MB or more are memory mapped, the info dictionary is hashed straight from the mapping
+     */
+    public static Metainfo read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MAP_THRESHOLD)
+                return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) != -1) ;
+            buffer.flip();
+            return parse(buffer);
+        }
+    }
+
+    public String getInfoHash() {
+        return infoHash;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    /**
+     * names are relative to the download dir like in torrent-get, bytesCompleted is always 0
+     */
+    public List<TorrentFile> getFiles() {
+        return files;
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In memory TransmissionMetrics keeping counters and latency histograms per rpc method
+ */
+public class SimpleTransmissionMetrics implements TransmissionMetrics {
+    private final Map<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+
+    private MethodMetrics of(String method) {
+        return methods.computeIfAbsent(method, m -> new MethodMetrics());
+    }
+
+    @Override
+    public void onRequest(String method, long bytes) {
+        MethodMetrics metrics = of(method);
+        metrics.requests.increment();
+        if (bytes > 0)
+            metrics.requestBytes.add(bytes);
+    }
+
+    @Override
+    public void onResponse(String method, int statusCode, long nanos) {
+        of(method).latency.record(nanos);
+    }
+
+    @Override
+    public void onParse(String method, long bytes, long nanos) {
+        MethodMetrics metrics = of(method);
+        metrics.responseBytes.add(bytes);
+        metrics.parse.record(nanos);
+    }
+
+    @Override
+    public void onTorrents(String method, int count) {
+        of(method).torrents.add(count);
+    }
+
+    @Override
+    public void onRenegotiation(String method) {
+        of(method).renegotiations.increment();
+    }
+
+    @Override
+    public void onUnauthorized(String method) {
+        of(method).unauthorized.increment();
+    }
+
+    @Override
+    public void onTimeout(String method) {
+        of(method).timeouts.increment();
+    }
+
+    @Override
+    public void onError(String method, Throwable cause) {
+        of(method).errors.increment();
+    }
+
+    public Map<String, MethodMetrics> getMethods() {
+        return Collections.unmodifiableMap(methods);
+    }
+
+    /**
+     * metrics of one method, empty if the method was never called
+     */
+    public MethodMetrics getMethod(String method) {
+        MethodMetrics metrics = methods.get(method);
+        return metrics == null ? new MethodMetrics() : metrics;
+    }
+
+    public static class MethodMetrics {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram parse = new LatencyHistogram();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder requestBytes = new LongAdder();
+        private final LongAdder responseBytes = new LongAdder();
+        private final LongAdder torrents = new LongAdder();
+        private final LongAdder renegotiations = new LongAdder();
+        private final LongAdder unauthorized = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        /**
+         * time until the response headers arrived
+         */
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        /**
+         * time spent reading and parsing 200 bodies
+         */
+        public LatencyHistogram getParse() {
+            return parse;
+        }
+
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        public long getRequestBytes() {
+            return requestBytes.sum();
+        }
+
+        /**
+         * decoded bytes of the 200 bodies, CompressionStats has the bytes on the wire
+         */
+        public long getResponseBytes() {
+            return responseBytes.sum();
+        }
+
+        public long getTorrents() {
+            return torrents.sum();
+        }
+
+        public long getRenegotiations() {
+            return renegotiations.sum();
+        }
+
+        public long getUnauthorized() {
+            return unauthorized.sum();
+        }
+
+        public long getTimeouts() {
+            return timeouts.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.metrics;
+
+/**
+ * Receives what TransmissionClient and TransmissionAsyncClient measure on every rpc call, method is the rpc method like torrent-get
+ * every callback has an empty default, implementations override what they record and must be thread safe
+ */
+public interface TransmissionMetrics {
+    /**
+     * records nothing, the default of TransmissionClientConfig
+     */
+    TransmissionMetrics NOOP = new TransmissionMetrics() {
+    };
+
+    /**
+     * a request of bytes is about to be sent, bytes is -1 for a streamed body of unknown length
+     */
+    default void onRequest(String method, long bytes) {
+    }
+
+    /**
+     * the status line and headers arrived after nanos, this is the time the daemon and the network took
+     */
+    default void onResponse(String method, int statusCode, long nanos) {
+    }
+
+    /**
+     * a 200 body of bytes was read and parsed in nanos, the body is parsed while it streams in
+     */
+    default void onParse(String method, long bytes, long nanos) {
+    }
+
+    /**
+     * number of torrents in a torrent-get response
+     */
+    default void onTorrents(String method, int count) {
+    }
+
+    /**
+     * transmission answered 409 and the session id was renegotiated
+     */
+    default void onRenegotiation(String method) {
+    }
+
+    default void onUnauthorized(String method) {
+    }
+
+    /**
+     * connect, socket or pool timeout
+     */
+    default void onTimeout(String method) {
+    }
+
+    /**
+     * the call failed for any other reason, a non 200 status or an io error
+     */
+    default void onError(String method, Throwable cause) {
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.request;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Fields of a torrent that can be requested by torrent-get, details in rpc-spec.txt section 3.3
+ */
+public enum TorrentField {
+    ID("id"),
+    NAME("name"),
+    IS_FINISHED("isFinished"),
+    DOWNLOAD_DIR("downloadDir"),
+    ACTIVITY_DATE("activityDate"),
+    ADDED_DATE("addedDate"),
+    DONE_DATE("doneDate"),
+    DATE_CREATED("dateCreated"),
+    BANDWIDTH_PRIORITY("bandwidthPriority"),
+    CREATOR("creator"),
+    DESIRED_AVAILABLE("desiredAvailable"),
+    FILES("files"),
+    IS_STALLED("isStalled"),
+    MAGNET_LINK("magnetLink"),
+    RATE_DOWNLOAD("rateDownload"),
+    RATE_UPLOAD("rateUpload"),
+    SECONDS_DOWNLOADING("secondsDownloading"),
+    SECONDS_SEEDING("secondsSeeding"),
+    TOTAL_SIZE("totalSize"),
+    UPLOAD_RATIO("uploadRatio"),
+    DOWNLOADED_EVER("downloadedEver"),
+    PERCENT_DONE("percentDone"),
+    STATUS("status"),
+    PIECES("pieces"),
+    PIECE_COUNT("pieceCount"),
+    PIECE_SIZE("pieceSize"),
+    FILE_STATS("fileStats"),
+    HASH_STRING("hashString");
+
+    /**
+     * what a progress refresh needs
+     */
+    public static final Set<TorrentField> PROGRESS = Collections.unmodifiableSet(EnumSet.of(ID, STATUS, PERCENT_DONE, RATE_DOWNLOAD, RATE_UPLOAD, DOWNLOADED_EVER, TOTAL_SIZE, UPLOAD_RATIO, IS_FINISHED, IS_STALLED));
+
+    /**
+     * everything a DownloadTask is built from except the file list
+     */
+    public static final Set<TorrentField> SUMMARY;
+
+    /**
+     * what torrent-get requests by default, fields added later are only sent when asked for
+     */
+    public static final Set<TorrentField> FULL = Collections.unmodifiableSet(EnumSet.of(ID, NAME, IS_FINISHED, DOWNLOAD_DIR, ACTIVITY_DATE, ADDED_DATE, DONE_DATE,
+            DATE_CREATED, BANDWIDTH_PRIORITY, CREATOR, DESIRED_AVAILABLE, FILES, IS_STALLED, MAGNET_LINK, RATE_DOWNLOAD, RATE_UPLOAD,
+            SECONDS_DOWNLOADING, SECONDS_SEEDING, TOTAL_SIZE, UPLOAD_RATIO, DOWNLOADED_EVER, PERCENT_DONE, STATUS));
+
+    /**
+     * what a PieceBitfield and the completion of every file are computed from
+     */
+    public static final Set<TorrentField> PIECE_PROGRESS = Collections.unmodifiableSet(EnumSet.of(ID, PIECES, PIECE_COUNT, PIECE_SIZE, FILES));
+
+    static {
+        EnumSet<TorrentField> summary = EnumSet.copyOf(PROGRESS);
+        summary.add(NAME);
+        summary.add(DOWNLOAD_DIR);
+        summary.add(ADDED_DATE);
+        summary.add(DONE_DATE);
+        summary.add(ACTIVITY_DATE);
+        SUMMARY = Collections.unmodifiableSet(summary);
+    }
+
+    private final String name;
+
+    TorrentField(String name) {
+        this.name = name;
+    }
+
+    /**
+     * the field name used in rpc
+     */
+    public String getName() {
+        return name;
+    }
+}
@@ -30,40 +30,36 @@
 
 package com.lixiaocong.downloader.transmission4j.request;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 public class TorrentGetRequest extends TransmissionRequest {
+    /**
+     * ids value asking for the torrents active in the last minute and the ones removed recently
+     */
+    public static final String RECENTLY_ACTIVE = "recently-active";
 
     public TorrentGetRequest(List<Integer> ids) {
+        this(ids, TorrentField.FULL);
+    }
+
+    public TorrentGetRequest(List<Integer> ids, Set<TorrentField> fields) {
+        this((Object) ids, fields);
+    }
+
+    private TorrentGetRequest(Object ids, Set<TorrentField> fields) {
         super(TransmissionRequestMethod.TORRENT_GET);
         if (ids != null)
             arguments.put("ids", ids);
 
-        LinkedList<String> fields = new LinkedList<>();
-        fields.add("id");
-        fields.add("name");
-        fields.add("isFinished");
-        fields.add("downloadDir");
-        fields.add("activityDate");
-        fields.add("addedDate");
-        fields.add("doneDate");
-        fields.add("dateCreated");
-        fields.add("bandwidthPriority");
-        fields.add("creator");
-        fields.add("desiredAvailable");
-        fields.add("files");
-        fields.add("isStalled");
-        fields.add("magnetLink");
-        fields.add("rateDownload");
-        fields.add("rateUpload");
-        fields.add("secondsDownloading");
-        fields.add("secondsSeeding");
-        fields.add("totalSize");
-        fields.add("uploadRatio");
-        fields.add("downloadedEver");
-        fields.add("percentDone");
-        fields.add("status");
-        arguments.put("fields", fields);
+        List<String> names = new ArrayList<>(fields.size());
+        for (TorrentField field : fields)
+            names.add(field.getName());
+        arguments.put("fields", names);
+    }
+
+    static TorrentGetRequest recentlyActive(Set<TorrentField> fields) {
+        return new TorrentGetRequest(RECENTLY_ACTIVE, fields);
     }
 }
@@ -30,12 +30,16 @@
 
 package com.lixiaocong.downloader.transmission4j.request;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.HashMap;
 import java.util.Map;
 
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class TransmissionRequest {
     protected String method;
     protected Map<String, Object> arguments;
+    protected Integer tag;  //optional, echoed by transmission in the response
 
     public TransmissionRequest(String method) {
         this.method = method;
@@ -57,4 +61,12 @@ public class TransmissionRequest {
     public void setArguments(Map<String, Object> arguments) {
         this.arguments = arguments;
     }
+
+    public Integer getTag() {
+        return tag;
+    }
+
+    public void setTag(Integer tag) {
+        this.tag = tag;
+    }
 }
@@ -31,6 +31,7 @@
 package com.lixiaocong.downloader.transmission4j.request;
 
 import java.util.List;
+import java.util.Set;
 
 public class TransmissionRequestFactory {
 
@@ -69,4 +70,16 @@ public class TransmissionRequestFactory {
     public static TransmissionRequest getgetAllRequest() {
         return new TorrentGetRequest(null);
     }
+
+    public static TransmissionRequest getGetRequest(List<Integer> ids, Set<TorrentField> fields) {
+        return new TorrentGetRequest(ids, fields);
+    }
+
+    public static TransmissionRequest getgetAllRequest(Set<TorrentField> fields) {
+        return new TorrentGetRequest(null, fields);
+    }
+
+    public static TransmissionRequest getRecentlyActiveRequest(Set<TorrentField> fields) {
+        return TorrentGetRequest.recentlyActive(fields);
+    }
 }
@@ -60,6 +60,11 @@ public class Torrent {
     private long downloadedEver;
     private double percentDone;
     private int status;
+    private String pieces;      //base64 bitfield, the highest bit of the first byte is piece 0
+    private long pieceCount;
+    private long pieceSize;
+    private List<TorrentFileStat> fileStats;
+    private String hashString;  //hex info hash
 
     public long getId() {
         return id;
@@ -244,4 +249,44 @@ public class Torrent {
     public void setStatus(int status) {
         this.status = status;
     }
+
+    public String getPieces() {
+        return pieces;
+    }
+
+    public void setPieces(String pieces) {
+        this.pieces = pieces;
+    }
+
+    public long getPieceCount() {
+        return pieceCount;
+    }
+
+    public void setPieceCount(long pieceCount) {
+        this.pieceCount = pieceCount;
+    }
+
+    public long getPieceSize() {
+        return pieceSize;
+    }
+
+    public void setPieceSize(long pieceSize) {
+        this.pieceSize = pieceSize;
+    }
+
+    public List<TorrentFileStat> getFileStats() {
+        return fileStats;
+    }
+
+    public void setFileStats(List<TorrentFileStat> fileStats) {
+        this.fileStats = fileStats;
+    }
+
+    public String getHashString() {
+        return hashString;
+    }
+
+    public void setHashString(String hashString) {
+        this.hashString = hashString;
+    }
 }
@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.response;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Exactly one of added and duplicate is set, both only carry id, name and hashString
+ */
+public class TorrentAddResponseArguments {
+    @JsonProperty("torrent-added")
+    private Torrent added;
+    @JsonProperty("torrent-duplicate")
+    private Torrent duplicate;
+
+    public Torrent getAdded() {
+        return added;
+    }
+
+    public void setAdded(Torrent added) {
+        this.added = added;
+    }
+
+    public Torrent getDuplicate() {
+        return duplicate;
+    }
+
+    public void setDuplicate(Torrent duplicate) {
+        this.duplicate = duplicate;
+    }
+
+    /**
+     * true if transmission already had the torrent
+     */
+    public boolean isDuplicate() {
+        return duplicate != null;
+    }
+
+    /**
+     * the added torrent, or the one that was already there
+     */
+    public Torrent getTorrent() {
+        return added != null ? added : duplicate;
+    }
+}
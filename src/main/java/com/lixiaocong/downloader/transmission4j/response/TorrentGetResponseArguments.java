@@ -34,6 +34,7 @@ import java.util.List;
 
 public class TorrentGetResponseArguments {
     private List<Torrent> torrents;
+    private List<Long> removed;     //only returned for recently-active requests
 
     public List<Torrent> getTorrents() {
         return torrents;
@@ -42,4 +43,12 @@ public class TorrentGetResponseArguments {
     public void setTorrents(List<Torrent> torrents) {
         this.torrents = torrents;
     }
+
+    public List<Long> getRemoved() {
+        return removed;
+    }
+
+    public void setRemoved(List<Long> removed) {
+        this.removed = removed;
+    }
 }
@@ -31,12 +31,13 @@
 package com.lixiaocong.downloader.transmission4j.response;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lixiaocong.downloader.transmission4j.exception.JsonException;
+import com.lixiaocong.downloader.transmission4j.utils.JsonUtil;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class TransmissionResponse {
     private String result;
+    private Integer tag;
 
     public String getResult() {
         return result;
@@ -46,12 +47,19 @@ public class TransmissionResponse {
         this.result = result;
     }
 
+    public Integer getTag() {
+        return tag;
+    }
+
+    public void setTag(Integer tag) {
+        this.tag = tag;
+    }
+
     @Override
     public String toString() {
-        ObjectMapper mapper = new ObjectMapper();
         try {
-            return mapper.writeValueAsString(this);
-        } catch (JsonProcessingException e) {
+            return JsonUtil.getJson(this);
+        } catch (JsonException e) {
             e.printStackTrace();
             return e.getMessage();
         }
@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.sync;
+
+import com.lixiaocong.downloader.DownloaderException;
+import com.lixiaocong.downloader.transmission4j.TransmissionClient;
+import com.lixiaocong.downloader.transmission4j.request.TorrentField;
+import com.lixiaocong.downloader.transmission4j.request.TransmissionRequest;
+import com.lixiaocong.downloader.transmission4j.request.TransmissionRequestFactory;
+import com.lixiaocong.downloader.transmission4j.response.Torrent;
+import com.lixiaocong.downloader.transmission4j.response.TorrentGetResponse;
+import com.lixiaocong.downloader.transmission4j.response.TorrentGetResponseArguments;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Local snapshot of the torrents of one daemon kept up to date with "recently-active" torrent-get requests
+ * the first poll fetches every torrent, later polls only fetch the torrents changed since
+ */
+public class TorrentDeltaSync {
+    //transmission treats torrents active in the last 60 seconds as recently active, a longer gap may miss changes
+    private static final long RECENTLY_ACTIVE_WINDOW = 60 * 1000;
+
+    private final TransmissionClient client;
+    private final Set<TorrentField> fields;
+    private final Map<Long, Torrent> torrents = new HashMap<>();
+    private long lastPoll;  //0 until the first full poll succeeds
+
+    public TorrentDeltaSync(TransmissionClient client) {
+        this(client, TorrentField.FULL);
+    }
+
+    public TorrentDeltaSync(TransmissionClient client, Set<TorrentField> fields) {
+        this.client = client;
+        EnumSet<TorrentField> set = EnumSet.copyOf(fields);
+        set.add(TorrentField.ID);   //the snapshot is keyed by id
+        this.fields = Collections.unmodifiableSet(set);
+    }
+
+    /**
+     * fetch the changes since the last poll and apply them to the snapshot
+     */
+    public synchronized TorrentDelta poll() throws DownloaderException {
+        long now = System.currentTimeMillis();
+        boolean full = lastPoll == 0 || now - lastPoll >= RECENTLY_ACTIVE_WINDOW;
+        TransmissionRequest request = full ? TransmissionRequestFactory.getgetAllRequest(fields) : TransmissionRequestFactory.getRecentlyActiveRequest(fields);
+        TorrentGetResponseArguments arguments = client.execute(request, TorrentGetResponse.class).getArguments();
+        List<Torrent> updated = arguments.getTorrents() == null ? Collections.emptyList() : arguments.getTorrents();
+
+        List<Long> removed;
+        if (full) {
+            Map<Long, Torrent> old = new HashMap<>(torrents);
+            torrents.clear();
+            for (Torrent torrent : updated) {
+                torrents.put(torrent.getId(), torrent);
+                old.remove(torrent.getId());
+            }
+            removed = new ArrayList<>(old.keySet());
+        } else {
+            for (Torrent torrent : updated)
+                torrents.put(torrent.getId(), torrent);
+            removed = new ArrayList<>();
+            if (arguments.getRemoved() != null) {
+                for (Long id : arguments.getRemoved()) {
+                    if (torrents.remove(id) != null)
+                        removed.add(id);
+                }
+            }
+        }
+        lastPoll = now;
+        return new TorrentDelta(full, updated, removed);
+    }
+
+    /**
+     * the next poll fetches every torrent again
+     */
+    public synchronized void reset() {
+        lastPoll = 0;
+    }
+
+    public synchronized Torrent getTorrent(long id) {
+        return torrents.get(id);
+    }
+
+    public synchronized List<Torrent> getTorrents() {
+        return new ArrayList<>(torrents.values());
+    }
+}
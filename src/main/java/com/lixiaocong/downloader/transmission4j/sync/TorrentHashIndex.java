@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.sync;
+
+import com.lixiaocong.downloader.DownloaderException;
+import com.lixiaocong.downloader.transmission4j.TransmissionClient;
+import com.lixiaocong.downloader.transmission4j.request.TorrentField;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Info hashes of the torrents a daemon has, so a .torrent can be checked with Metainfo before it is uploaded
+ * <pre>
+ * if (!index.contains(Metainfo.read(path).getInfoHash()))
+ *     client.addByMetainfo(path);
+ * </pre>
+ */
+public class TorrentHashIndex {
+    public static final Set<TorrentField> FIELDS = Collections.unmodifiableSet(EnumSet.of(TorrentField.ID, TorrentField.HASH_STRING));
+    private static final long PENDING = -1;     //an add of the hash is in flight
+
+    private final TransmissionClient client;
+    private final Map<String, Long> ids = new ConcurrentHashMap<>();
+
+    public TorrentHashIndex(TransmissionClient client) {
+        this.client = client;
+    }
+
+    /**
+     * reload the hashes of all torrents with one torrent-get of id and hashString
+     */
+    public void refresh() throws DownloaderException {
+        Map<String, Long> fresh = new HashMap<>();
+        client.getTorrents(FIELDS, torrent -> {
+            if (torrent.getHashString() != null)
+                fresh.put(normalize(torrent.getHashString()), torrent.getId());
+        });
+        //adds in flight are kept, they are not in the response yet
+        ids.entrySet().removeIf(entry -> entry.getValue() != PENDING && !fresh.containsKey(entry.getKey()));
+        ids.putAll(fresh);
+    }
+
+    /**
+     * true if the daemon has the torrent or an add of it is in flight
+     */
+    public boolean contains(String hash) {
+        return ids.containsKey(normalize(hash));
+    }
+
+    /**
+     * id of the torrent with hash, null if it is unknown or still being added
+     */
+    public Long getId(String hash) {
+        Long id = ids.get(normalize(hash));
+        return id == null || id == PENDING ? null : id;
+    }
+
+    public void put(String hash, long id) {
+        ids.put(normalize(hash), id);
+    }
+
+    public void remove(String hash) {
+        ids.remove(normalize(hash));
+    }
+
+    /**
+     * mark hash as being added, false if it is known already or claimed by another add
+     * a claim must end with put once the add is done or release if it failed
+     */
+    public boolean claim(String hash) {
+        return ids.putIfAbsent(normalize(hash), PENDING) == null;
+    }
+
+    public void release(String hash) {
+        ids.remove(normalize(hash), PENDING);
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    private static String normalize(String hash) {
+        return hash.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,196 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.sync;
+
+import com.lixiaocong.downloader.DownloadTask;
+import com.lixiaocong.downloader.DownloaderException;
+import com.lixiaocong.downloader.transmission4j.TransmissionClient;
+import com.lixiaocong.downloader.transmission4j.analytics.TorrentHistory;
+import com.lixiaocong.downloader.transmission4j.request.TorrentField;
+import com.lixiaocong.downloader.transmission4j.response.Torrent;
+import com.lixiaocong.downloader.transmission4j.utils.TaskConvert;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In memory registry of the torrents of one daemon, refreshed in the background by a TorrentDeltaSync
+ * reads never touch the network, listeners are told about every change found by a refresh
+ */
+public class TorrentRegistry implements Closeable {
+    private static Log log = LogFactory.getLog(TorrentRegistry.class.getName());
+
+    private final TorrentDeltaSync sync;
+    private final long interval;
+    private final Map<Long, Torrent> torrents = new ConcurrentHashMap<>();
+    private final Map<Long, DownloadTask> tasks = new ConcurrentHashMap<>();
+    private final List<TorrentListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile TorrentHistory history;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param interval refresh interval in milliseconds
+     */
+    public TorrentRegistry(TransmissionClient client, long interval) {
+        this(client, interval, TorrentField.FULL);
+    }
+
+    public TorrentRegistry(TransmissionClient client, long interval, Set<TorrentField> fields) {
+        this.sync = new TorrentDeltaSync(client, fields);
+        this.interval = interval;
+    }
+
+    public void addListener(TorrentListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(TorrentListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * record every torrent into history after each refresh, null stops recording
+     */
+    public void setHistory(TorrentHistory history) {
+        this.history = history;
+    }
+
+    public TorrentHistory getHistory() {
+        return history;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null)
+            return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "transmission-registry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (DownloaderException e) {
+                log.warn("refresh torrents exception:", e);
+            } catch (RuntimeException e) {
+                log.error("refresh torrents exception:", e);
+            }
+        }, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * poll the daemon once and fire the events of the changes
+     */
+    public void refresh() throws DownloaderException {
+        List<TorrentEvent> events = new ArrayList<>();
+        synchronized (sync) {
+            TorrentDelta delta = sync.poll();
+            for (Torrent torrent : delta.getUpdated()) {
+                Torrent previous = torrents.put(torrent.getId(), torrent);
+                tasks.put(torrent.getId(), TaskConvert.convertToDownloadTask(torrent));
+                compare(previous, torrent, events);
+            }
+            for (Long id : delta.getRemoved()) {
+                Torrent previous = torrents.remove(id);
+                tasks.remove(id);
+                if (previous != null)
+                    events.add(new TorrentEvent(TorrentEvent.Type.REMOVED, id, previous, null));
+            }
+            //every known torrent gets a sample, also the idle ones a recently-active poll did not return
+            TorrentHistory history = this.history;
+            if (history != null) {
+                for (Long id : delta.getRemoved())
+                    history.remove(id);
+                history.record(System.currentTimeMillis(), torrents.values());
+            }
+        }
+        for (TorrentEvent event : events)
+            fire(event);
+    }
+
+    private void compare(Torrent previous, Torrent current, List<TorrentEvent> events) {
+        long id = current.getId();
+        if (previous == null) {
+            events.add(new TorrentEvent(TorrentEvent.Type.ADDED, id, null, current));
+            return;
+        }
+        if (previous.getStatus() != current.getStatus())
+            events.add(new TorrentEvent(TorrentEvent.Type.STATUS_CHANGED, id, previous, current));
+        if (previous.getPercentDone() < 1 && current.getPercentDone() >= 1)
+            events.add(new TorrentEvent(TorrentEvent.Type.FINISHED, id, previous, current));
+        if (previous.getRateDownload() != current.getRateDownload() || previous.getRateUpload() != current.getRateUpload())
+            events.add(new TorrentEvent(TorrentEvent.Type.RATE_CHANGED, id, previous, current));
+    }
+
+    private void fire(TorrentEvent event) {
+        for (TorrentListener listener : listeners) {
+            try {
+                listener.onEvent(event);
+            } catch (RuntimeException e) {
+                log.error("torrent listener exception:", e);
+            }
+        }
+    }
+
+    public Torrent getTorrent(long id) {
+        return torrents.get(id);
+    }
+
+    public List<Torrent> getTorrents() {
+        return new ArrayList<>(torrents.values());
+    }
+
+    public DownloadTask get(String gid) {
+        return tasks.get(Long.valueOf(gid));
+    }
+
+    public List<DownloadTask> get() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+}
@@ -30,33 +30,153 @@
 
 package com.lixiaocong.downloader.transmission4j.utils;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.lixiaocong.downloader.DownloadFile;
+import com.lixiaocong.downloader.DownloadTask;
 import com.lixiaocong.downloader.transmission4j.exception.JsonException;
+import com.lixiaocong.downloader.transmission4j.response.Torrent;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
 
+/**
+ * Json conversion with one shared ObjectMapper, readers and writers are cached per class
+ * so bean introspection only happens once for every request and response type
+ */
 public class JsonUtil {
     private static Log log = LogFactory.getLog(JsonUtil.class.getName());
 
-    public static <T> T getObject(Class<T> clazz, String msg) throws JsonException {
+    private static volatile ObjectMapper mapper = defaultMapper();
+    private static final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    private static ObjectMapper defaultMapper() {
         ObjectMapper mapper = new ObjectMapper();
         mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        return mapper;
+    }
+
+    public static ObjectMapper getObjectMapper() {
+        return mapper;
+    }
+
+    /**
+     * replace the shared mapper, e.g. to register modules, the cached readers and writers are dropped
+     */
+    public static void setObjectMapper(ObjectMapper objectMapper) {
+        if (objectMapper == null)
+            throw new IllegalArgumentException("objectMapper is null");
+        mapper = objectMapper;
+        readers.clear();
+        writers.clear();
+    }
+
+    public static ObjectReader getReader(Class<?> clazz) {
+        return readers.computeIfAbsent(clazz, c -> mapper.readerFor(c));
+    }
+
+    public static ObjectWriter getWriter(Class<?> clazz) {
+        return writers.computeIfAbsent(clazz, c -> mapper.writerFor(c));
+    }
+
+    public static <T> T getObject(Class<T> clazz, String msg) throws JsonException {
         try {
-            return mapper.readValue(msg, clazz);
+            return getReader(clazz).readValue(msg);
         } catch (IOException e) {
             log.error(e);
             throw new JsonException(e.getMessage());
         }
     }
 
+    public static <T> T getObject(Class<T> clazz, InputStream in) throws JsonException {
+        try {
+            return getReader(clazz).readValue(in);
+        } catch (IOException e) {
+            log.error(e);
+            throw new JsonException(e.getMessage());
+        }
+    }
+
+    /**
+     * read a torrent-get response and hand every torrent to consumer as soon as it is parsed,
+     * the whole torrent list is never held in memory
+     *
+     * @return the result field of the response
+     */
+    public static String readTorrents(InputStream in, Consumer<Torrent> consumer) throws JsonException {
+        ObjectReader reader = getReader(Torrent.class);
+        return readTorrentArray(in, parser -> consumer.accept(reader.readValue(parser)));
+    }
+
+    /**
+     * like readTorrents, but every torrent is bound straight to a DownloadTask by TaskConvert
+     */
+    public static String readDownloadTasks(InputStream in, Consumer<DownloadTask> consumer) throws JsonException {
+        return readTorrentArray(in, parser -> consumer.accept(TaskConvert.readDownloadTask(parser)));
+    }
+
+    /**
+     * missingFiles gives the file list of torrents whose files were not requested
+     */
+    public static String readDownloadTasks(InputStream in, LongFunction<List<DownloadFile>> missingFiles, Consumer<DownloadTask> consumer) throws JsonException {
+        return readTorrentArray(in, parser -> consumer.accept(TaskConvert.readDownloadTask(parser, missingFiles)));
+    }
+
+    private interface TorrentHandler {
+        void handle(JsonParser parser) throws IOException;
+    }
+
+    /**
+     * walk a torrent-get response and hand the parser to handler on every torrent object of arguments.torrents
+     * returns the result field of the response
+     */
+    private static String readTorrentArray(InputStream in, TorrentHandler handler) throws JsonException {
+        String result = null;
+        try (JsonParser parser = mapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                throw new JsonException("torrent-get response is not an object");
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("result".equals(field)) {
+                    result = parser.getValueAsString();
+                } else if ("arguments".equals(field) && token == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String argument = parser.getCurrentName();
+                        if (parser.nextToken() == JsonToken.START_ARRAY && "torrents".equals(argument)) {
+                            while (parser.nextToken() == JsonToken.START_OBJECT)
+                                handler.handle(parser);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            log.error(e);
+            throw new JsonException(e.getMessage());
+        }
+        return result;
+    }
+
     public static <T> String getJson(T obj) throws JsonException {
-        ObjectMapper mapper = new ObjectMapper();
         try {
-            return mapper.writeValueAsString(obj);
+            return getWriter(obj.getClass()).writeValueAsString(obj);
         } catch (JsonProcessingException e) {
             log.error(e);
             throw new JsonException(e.getMessage());
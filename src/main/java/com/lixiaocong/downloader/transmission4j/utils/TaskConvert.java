@@ -30,6 +30,8 @@
 
 package com.lixiaocong.downloader.transmission4j.utils;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.lixiaocong.downloader.DownloadFile;
 import com.lixiaocong.downloader.DownloadStatus;
 import com.lixiaocong.downloader.DownloadTask;
@@ -37,44 +39,22 @@ import com.lixiaocong.downloader.DownloadType;
 import com.lixiaocong.downloader.transmission4j.response.Torrent;
 import com.lixiaocong.downloader.transmission4j.response.TorrentFile;
 
-import java.util.LinkedList;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.LongFunction;
 
 public class TaskConvert {
     public static List<DownloadTask> convertToDownloadTask(List<Torrent> torrents) {
-        List<DownloadTask> ret = new LinkedList<>();
-        torrents.forEach(torrent -> {
-            ret.add(convertToDownloadTask(torrent));
-        });
+        List<DownloadTask> ret = new ArrayList<>(torrents.size());
+        for (int i = 0; i < torrents.size(); i++)
+            ret.add(convertToDownloadTask(torrents.get(i)));
         return ret;
     }
 
-    private static DownloadTask convertToDownloadTask(Torrent torrent) {
+    public static DownloadTask convertToDownloadTask(Torrent torrent) {
         String id = String.valueOf(torrent.getId());
-        DownloadStatus status;
-        switch (torrent.getStatus()) {
-            case 0:
-                status = DownloadStatus.PAUSED;
-                break;
-            case 1:
-            case 2:
-            case 3:
-                status = DownloadStatus.WAITING;
-                break;
-            case 4:
-                status = DownloadStatus.ACTIVE;
-                break;
-            case 5:
-            case 6:
-                status = DownloadStatus.COMPLETED;
-                break;
-            case 7:
-                status = DownloadStatus.ERROR;
-                break;
-            default:
-                status = DownloadStatus.OTHER;
-        }
-
+        DownloadStatus status = convertStatus(torrent.getStatus());
         DownloadType type = DownloadType.TORRENT;
         String name = torrent.getName();
         long totalLength = torrent.getTotalSize();
@@ -87,9 +67,129 @@ public class TaskConvert {
         return new DownloadTask(id, status, type, name, totalLength, downloadLength, downloadSpeed, uploadLength, uploadSpeed, dir, files);
     }
 
-    private static List<DownloadFile> covertToDownloadFile(List<TorrentFile> files) {
-        List<DownloadFile> ret = new LinkedList<>();
-        files.forEach(file -> ret.add(convertToDownloadTask(file)));
+    /**
+     * bind one torrent object of a torrent-get response straight to a DownloadTask, no Torrent or TorrentFile is created
+     * the parser must be positioned on the START_OBJECT of the torrent and is left on its END_OBJECT
+     */
+    public static DownloadTask readDownloadTask(JsonParser parser) throws IOException {
+        return readDownloadTask(parser, id -> new ArrayList<>(0));
+    }
+
+    /**
+     * missingFiles gives the file list of a torrent whose files were not requested, it is called with the torrent id
+     */
+    public static DownloadTask readDownloadTask(JsonParser parser, LongFunction<List<DownloadFile>> missingFiles) throws IOException {
+        long id = 0;
+        int status = 0;
+        String name = null;
+        long totalSize = 0;
+        long downloadedEver = 0;
+        long rateDownload = 0;
+        double uploadRatio = 0;
+        long rateUpload = 0;
+        String downloadDir = null;
+        List<DownloadFile> files = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "id":
+                    id = parser.getValueAsLong();
+                    break;
+                case "status":
+                    status = parser.getValueAsInt();
+                    break;
+                case "name":
+                    name = parser.getValueAsString();
+                    break;
+                case "totalSize":
+                    totalSize = parser.getValueAsLong();
+                    break;
+                case "downloadedEver":
+                    downloadedEver = parser.getValueAsLong();
+                    break;
+                case "rateDownload":
+                    rateDownload = parser.getValueAsLong();
+                    break;
+                case "uploadRatio":
+                    uploadRatio = parser.getValueAsDouble();
+                    break;
+                case "rateUpload":
+                    rateUpload = parser.getValueAsLong();
+                    break;
+                case "downloadDir":
+                    downloadDir = parser.getValueAsString();
+                    break;
+                case "files":
+                    if (token == JsonToken.START_ARRAY)
+                        files = readDownloadFiles(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        if (files == null)  //files is not in the requested fields
+            files = missingFiles.apply(id);
+        long uploadLength = (long) (uploadRatio * totalSize);
+        return new DownloadTask(String.valueOf(id), convertStatus(status), DownloadType.TORRENT, name, totalSize, downloadedEver, rateDownload, uploadLength, rateUpload, downloadDir, files);
+    }
+
+    private static List<DownloadFile> readDownloadFiles(JsonParser parser) throws IOException {
+        List<DownloadFile> ret = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String name = null;
+            long length = 0;
+            long bytesCompleted = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case "name":
+                        name = parser.getValueAsString();
+                        break;
+                    case "length":
+                        length = parser.getValueAsLong();
+                        break;
+                    case "bytesCompleted":
+                        bytesCompleted = parser.getValueAsLong();
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            ret.add(new DownloadFile(name, name, length, bytesCompleted));
+        }
+        return ret;
+    }
+
+    private static DownloadStatus convertStatus(int status) {
+        switch (status) {
+            case 0:
+                return DownloadStatus.PAUSED;
+            case 1:
+            case 2:
+            case 3:
+                return DownloadStatus.WAITING;
+            case 4:
+                return DownloadStatus.ACTIVE;
+            case 5:
+            case 6:
+                return DownloadStatus.COMPLETED;
+            case 7:
+                return DownloadStatus.ERROR;
+            default:
+                return DownloadStatus.OTHER;
+        }
+    }
+
+    public static List<DownloadFile> covertToDownloadFile(List<TorrentFile> files) {
+        if (files == null)  //files is not in the requested fields
+            return new ArrayList<>(0);
+        List<DownloadFile> ret = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++)
+            ret.add(convertToDownloadTask(files.get(i)));
         return ret;
     }
 
@@ -0,0 +1,171 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j;
+
+import com.lixiaocong.downloader.transmission4j.fake.FakeTransmissionServer;
+import com.lixiaocong.downloader.transmission4j.metrics.SimpleTransmissionMetrics;
+import com.lixiaocong.downloader.transmission4j.request.TorrentAddRequest;
+import com.lixiaocong.downloader.transmission4j.request.TransmissionRequestMethod;
+import com.lixiaocong.downloader.transmission4j.response.TorrentAddResponse;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MetainfoEntityTest {
+    private static final int CHUNK = 48 * 1024;
+
+    @Test
+    public void writeToMatchesGetContent() throws Exception {
+        for (int size : new int[]{0, 1, 2, 3, 4, 1000, CHUNK - 1, CHUNK + 1, 2 * CHUNK + 2})
+            assertBody(random(size));
+    }
+
+    @Test
+    public void chunkEndingOnAGroupBoundaryGetsNoPaddingInside() throws Exception {
+        //CHUNK is a multiple of 3, padding in the middle of the body would corrupt it
+        assertBody(random(CHUNK));
+        assertBody(random(2 * CHUNK));
+        assertBody(random(3 * CHUNK + 3));
+    }
+
+    @Test
+    public void largeFilesAreMemoryMapped() throws Exception {
+        assertBody(random(1024 * 1024 + 7));
+    }
+
+    @Test
+    public void streamEntityIsSentOnce() throws Exception {
+        byte[] metainfo = random(CHUNK + 5);
+        MetainfoEntity entity = MetainfoEntity.of(request(), new ByteArrayInputStream(metainfo));
+
+        assertFalse(entity.isRepeatable());
+        assertEquals(-1, entity.getContentLength());
+        assertArrayEquals(metainfo, decode(read(entity.getContent())));
+    }
+
+    @Test
+    public void pathEntityCanBeSentAgain() throws Exception {
+        Path path = write(random(5000));
+        try {
+            MetainfoEntity entity = MetainfoEntity.of(request(), path);
+            assertTrue(entity.isRepeatable());
+            assertArrayEquals(writeTo(entity), writeTo(entity));
+            assertArrayEquals(read(entity.getContent()), read(entity.getContent()));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void bodyIsResentAfterConflict() throws Exception {
+        SimpleTransmissionMetrics metrics = new SimpleTransmissionMetrics();
+        try (FakeTransmissionServer server = new FakeTransmissionServer(null, null);
+             TransmissionClient client = new TransmissionClientBuilder(server.getUri()).credentials("", "").metrics(metrics).build()) {
+            //no session id yet, the first try is answered with 409
+            TorrentAddResponse response = client.addByMetainfo(Paths.get(getClass().getResource("/test.torrent").toURI()));
+
+            assertEquals("f76a6c7ad2e7e6c5255b7af7252ef03806fddc0c", response.getArguments().getAdded().getHashString());
+            assertEquals(1, metrics.getMethod(TransmissionRequestMethod.TORRENT_ADD).getRenegotiations());
+            assertEquals(1, server.getRequestCount(TransmissionRequestMethod.TORRENT_ADD));
+        }
+    }
+
+    private static void assertBody(byte[] metainfo) throws Exception {
+        Path path = write(metainfo);
+        try {
+            MetainfoEntity entity = MetainfoEntity.of(request(), path);
+            byte[] written = writeTo(entity);
+
+            assertArrayEquals(written, read(entity.getContent()));
+            assertEquals(written.length, entity.getContentLength());
+            assertArrayEquals(metainfo, decode(written));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static TorrentAddRequest request() {
+        return new TorrentAddRequest(MetainfoEntity.PLACEHOLDER);
+    }
+
+    /**
+     * the metainfo of a body, it is the only string value that is not json syntax around it
+     */
+    private static byte[] decode(byte[] body) {
+        String json = new String(body, StandardCharsets.UTF_8);
+        String prefix = "\"metainfo\":\"";
+        int start = json.indexOf(prefix) + prefix.length();
+        return Base64.getDecoder().decode(json.substring(start, json.indexOf('"', start)));
+    }
+
+    private static byte[] writeTo(MetainfoEntity entity) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        try (InputStream content = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1000];
+            int n;
+            while ((n = content.read(buffer)) != -1)
+                out.write(buffer, 0, n);
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] random(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static Path write(byte[] bytes) throws IOException {
+        Path path = Files.createTempFile("metainfo", ".torrent");
+        Files.write(path, bytes);
+        return path;
+    }
+}
@@ -0,0 +1,236 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j;
+
+import com.lixiaocong.downloader.DownloaderException;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class RequestCoalescerTest {
+    @Test
+    public void concurrentCallsShareOneRoundTrip() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(0);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> leader = executor.submit(() -> coalescer.execute("key", () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "result";
+            }));
+            started.await();
+            Future<Object> waiter = executor.submit(() -> coalescer.execute("key", () -> {
+                calls.incrementAndGet();
+                return "other";
+            }));
+            Thread.sleep(50);   //the waiter joins the call in flight
+            release.countDown();
+
+            assertEquals("result", leader.get(1, TimeUnit.SECONDS));
+            assertSame(leader.get(), waiter.get(1, TimeUnit.SECONDS));
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void resultIsReusedUntilTtlExpires() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(100);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertEquals(1, (int) coalescer.execute("key", calls::incrementAndGet));
+        assertEquals(1, (int) coalescer.execute("key", calls::incrementAndGet));
+        Thread.sleep(150);
+        assertEquals(2, (int) coalescer.execute("key", calls::incrementAndGet));
+    }
+
+    @Test
+    public void withoutTtlNothingIsReused() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(0);
+        AtomicInteger calls = new AtomicInteger();
+
+        coalescer.execute("key", calls::incrementAndGet);
+        coalescer.execute("key", calls::incrementAndGet);
+        assertEquals(2, calls.get());
+        assertEquals(0, coalescer.size());
+    }
+
+    @Test
+    public void expiredEntriesOfOtherKeysAreSwept() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(50);
+        for (int i = 0; i < 100; i++) {
+            int id = i;
+            coalescer.execute("torrent " + id, () -> id);
+        }
+        assertEquals(100, coalescer.size());
+
+        Thread.sleep(100);
+        coalescer.execute("session", () -> 0);
+        assertEquals(1, coalescer.size());
+    }
+
+    @Test
+    public void errorsReachWaitersAndAreNotCached() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(1000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> leader = executor.submit(() -> coalescer.execute("key", () -> {
+                started.countDown();
+                await(release);
+                throw new DownloaderException("daemon down");
+            }));
+            started.await();
+            Future<Object> waiter = executor.submit(() -> coalescer.execute("key", () -> "not called"));
+            Thread.sleep(50);
+            release.countDown();
+
+            assertFailedWith(leader, "daemon down");
+            assertFailedWith(waiter, "daemon down");
+            assertEquals("retried", coalescer.execute("key", () -> "retried"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void errorsReleaseWaitersAndTheKey() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(1000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> leader = executor.submit(() -> coalescer.execute("key", () -> {
+                started.countDown();
+                await(release);
+                throw new StackOverflowError();
+            }));
+            started.await();
+            Future<Object> waiter = executor.submit(() -> coalescer.execute("key", () -> "not called"));
+            Thread.sleep(50);
+            release.countDown();
+
+            assertErrorFailed(leader);
+            assertErrorFailed(waiter);
+            assertEquals(0, coalescer.size());
+            assertEquals("retried", coalescer.execute("key", () -> "retried"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void waiterWithDeadlineStopsWaitingAtItsDeadline() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(0);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> leader = executor.submit(() -> coalescer.execute("key", () -> {
+                started.countDown();
+                await(release);
+                return "result";
+            }));
+            started.await();
+            Future<Object> waiter = executor.submit(() -> {
+                try (Deadline ignored = Deadline.after(50)) {
+                    return coalescer.execute("key", () -> "not called");
+                }
+            });
+
+            assertFailedWith(waiter, "deadline exceeded while waiting for a coalesced request");
+            release.countDown();
+            assertEquals("result", leader.get(1, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void callerWithDeadlineNeverLeads() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(1000);
+        try (Deadline ignored = Deadline.after(1000)) {
+            assertEquals("first", coalescer.execute("key", () -> "first"));
+            assertEquals(0, coalescer.size());
+            assertEquals("second", coalescer.execute("key", () -> "second"));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void runtimeExceptionsArePassedOn() throws Exception {
+        new RequestCoalescer(0).execute("key", () -> {
+            throw new IllegalStateException("bad response");
+        });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void assertFailedWith(Future<Object> future, String message) throws Exception {
+        try {
+            future.get(1, TimeUnit.SECONDS);
+            fail("expected " + message);
+        } catch (ExecutionException e) {
+            assertEquals(DownloaderException.class, e.getCause().getClass());
+            assertEquals(message, e.getCause().getMessage());
+        }
+    }
+
+    private static void assertErrorFailed(Future<Object> future) throws Exception {
+        try {
+            future.get(1, TimeUnit.SECONDS);
+            fail("expected an error");
+        } catch (ExecutionException e) {
+            assertEquals(StackOverflowError.class, e.getCause().getClass());
+        }
+    }
+}
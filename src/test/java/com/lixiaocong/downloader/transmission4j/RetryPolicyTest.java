@@ -0,0 +1,160 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j;
+
+import com.lixiaocong.downloader.DownloaderException;
+import com.lixiaocong.downloader.transmission4j.fake.FakeTransmissionServer;
+import com.lixiaocong.downloader.transmission4j.metrics.SimpleTransmissionMetrics;
+import com.lixiaocong.downloader.transmission4j.request.TransmissionRequestMethod;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RetryPolicyTest {
+    @Test
+    public void onlyIdempotentMethodsAreRetryable() {
+        RetryPolicy policy = new RetryPolicy();
+
+        assertTrue(policy.isRetryable(TransmissionRequestMethod.TORRENT_GET));
+        assertTrue(policy.isRetryable(TransmissionRequestMethod.SESSION_STATS));
+        assertFalse(policy.isRetryable(TransmissionRequestMethod.TORRENT_START));
+        assertFalse(policy.isRetryable(TransmissionRequestMethod.TORRENT_ADD));
+
+        policy.setMaxAttempts(1);
+        assertFalse(policy.isRetryable(TransmissionRequestMethod.TORRENT_GET));
+    }
+
+    @Test
+    public void delayStaysUnderTheCappedBackoff() {
+        RetryPolicy policy = new RetryPolicy();
+        policy.setBaseDelay(10);
+        policy.setMaxDelay(50);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(policy.getDelay(1) <= 10);
+            assertTrue(policy.getDelay(2) <= 20);
+            assertTrue(policy.getDelay(4) <= 50);
+            assertTrue(policy.getDelay(100) <= 50);
+            assertTrue(policy.getDelay(100) >= 0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void atLeastOneAttempt() {
+        new RetryPolicy().setMaxAttempts(0);
+    }
+
+    @Test
+    public void nestedDeadlineNeverOutlivesTheOuterOne() {
+        try (Deadline outer = Deadline.after(100)) {
+            try (Deadline inner = Deadline.after(60000)) {
+                assertSame(inner, Deadline.current());
+                assertTrue(inner.remainingMillis() <= 100);
+            }
+            assertSame(outer, Deadline.current());
+        }
+        assertNull(Deadline.current());
+    }
+
+    @Test
+    public void expiredDeadline() {
+        try (Deadline deadline = Deadline.after(0)) {
+            assertTrue(deadline.isExpired());
+            assertEquals(0, deadline.remainingMillis());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void serverErrorsAreRetriedUpToMaxAttempts() throws Exception {
+        SimpleTransmissionMetrics metrics = new SimpleTransmissionMetrics();
+        try (FakeTransmissionServer server = new FakeTransmissionServer(null, null);
+             TransmissionClient client = client(server, metrics, 1)) {
+            server.setErrorRate(1);
+            try {
+                client.get();
+                fail();
+            } catch (DownloaderException e) {
+                assertEquals(3, metrics.getMethod(TransmissionRequestMethod.TORRENT_GET).getErrors());
+            }
+            try {
+                client.start();
+                fail();
+            } catch (DownloaderException e) {
+                assertEquals(1, metrics.getMethod(TransmissionRequestMethod.TORRENT_START).getErrors());
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void retryIsSkippedWhenTheBackoffOutlastsTheDeadline() throws Exception {
+        SimpleTransmissionMetrics metrics = new SimpleTransmissionMetrics();
+        try (FakeTransmissionServer server = new FakeTransmissionServer(null, null);
+             TransmissionClient client = client(server, metrics, 1L << 50)) {
+            server.setErrorRate(1);
+            try (Deadline ignored = Deadline.after(5000)) {
+                client.get();
+                fail();
+            } catch (DownloaderException e) {
+                assertEquals(1, metrics.getMethod(TransmissionRequestMethod.TORRENT_GET).getErrors());
+            }
+        }
+    }
+
+    @Test
+    public void expiredDeadlineSendsNothing() throws Exception {
+        SimpleTransmissionMetrics metrics = new SimpleTransmissionMetrics();
+        try (FakeTransmissionServer server = new FakeTransmissionServer(null, null);
+             TransmissionClient client = client(server, metrics, 1)) {
+            try (Deadline ignored = Deadline.after(0)) {
+                client.get();
+                fail();
+            } catch (DownloaderException e) {
+                assertEquals(1, metrics.getMethod(TransmissionRequestMethod.TORRENT_GET).getTimeouts());
+                assertEquals(0, metrics.getMethod(TransmissionRequestMethod.TORRENT_GET).getRequests());
+            }
+        }
+    }
+
+    private static TransmissionClient client(FakeTransmissionServer server, SimpleTransmissionMetrics metrics, long delay) {
+        RetryPolicy policy = new RetryPolicy();
+        policy.setBaseDelay(delay);
+        policy.setMaxDelay(delay);
+        return new TransmissionClientBuilder(server.getUri())
+                .credentials("", "")
+                .retryPolicy(policy)
+                .metrics(metrics)
+                .build();
+    }
+}
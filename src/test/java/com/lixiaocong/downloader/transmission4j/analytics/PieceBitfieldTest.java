@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.analytics;
+
+import com.lixiaocong.downloader.transmission4j.response.TorrentFile;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PieceBitfieldTest {
+    @Test
+    public void highestBitOfFirstByteIsPieceZero() {
+        PieceBitfield bitfield = PieceBitfield.decode(pieces(0x80, 0x01), 16);
+
+        assertTrue(bitfield.has(0));
+        assertFalse(bitfield.has(1));
+        assertFalse(bitfield.has(7));
+        assertFalse(bitfield.has(8));
+        assertTrue(bitfield.has(15));
+        assertEquals(2, bitfield.cardinality());
+    }
+
+    @Test
+    public void paddingBitsAreNotPieces() {
+        PieceBitfield bitfield = PieceBitfield.decode(pieces(0xff), 5);
+
+        assertEquals(5, bitfield.cardinality());
+        assertEquals(1.0, bitfield.getPercentDone(), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooFewBitsAreRejected() {
+        PieceBitfield.decode(pieces(0xff), 9);
+    }
+
+    @Test
+    public void countAndNextMissingAcrossWords() {
+        //130 pieces, all of them but 64 and 129
+        int[] bytes = new int[17];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = 0xff;
+        bytes[8] = 0x7f;
+        bytes[16] = 0x80;
+        PieceBitfield bitfield = PieceBitfield.decode(pieces(bytes), 130);
+
+        assertEquals(128, bitfield.cardinality());
+        assertEquals(9, bitfield.count(60, 70));
+        assertEquals(64, bitfield.count(0, 64));
+        assertEquals(0, bitfield.count(64, 65));
+        assertEquals(1, bitfield.count(128, 130));
+        assertEquals(64, bitfield.nextMissing(0));
+        assertEquals(129, bitfield.nextMissing(65));
+        assertEquals(130, bitfield.nextMissing(130));
+    }
+
+    @Test
+    public void fileCompletionAtPieceBoundaries() {
+        //pieces of 4 bytes, the torrent has 0, 1 and 3
+        PieceBitfield bitfield = PieceBitfield.decode(pieces(0xd0), 4);
+        List<TorrentFile> files = new ArrayList<>();
+        files.add(file(4));     //piece 0 exactly
+        files.add(file(5));     //pieces 1 and 2
+        files.add(file(0));
+        files.add(file(2));     //inside piece 2
+        files.add(file(5));     //last byte of piece 2 and piece 3
+
+        assertArrayEquals(new double[]{1, 0.5, 1, 0, 0.5}, bitfield.getFileCompletion(files, 4), 1e-9);
+    }
+
+    private static String pieces(int... bytes) {
+        byte[] bitfield = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++)
+            bitfield[i] = (byte) bytes[i];
+        return Base64.getEncoder().encodeToString(bitfield);
+    }
+
+    private static TorrentFile file(long length) {
+        TorrentFile file = new TorrentFile();
+        file.setLength(length);
+        return file;
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.analytics;
+
+import com.lixiaocong.downloader.transmission4j.fake.FakeTransmissionServer;
+import com.lixiaocong.downloader.transmission4j.fleet.FleetResult;
+import com.lixiaocong.downloader.transmission4j.fleet.TransmissionFleetClient;
+import com.lixiaocong.downloader.transmission4j.response.SessionStatsResponseArguments;
+import org.junit.Test;
+
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class SessionStatsAggregatorTest {
+    @Test(timeout = 10000)
+    public void nodesThatStopAnsweringLeaveTheWindow() throws Exception {
+        try (FakeTransmissionServer a = new FakeTransmissionServer(null, null);
+             FakeTransmissionServer b = new FakeTransmissionServer(null, null);
+             TransmissionFleetClient fleet = new TransmissionFleetClient(2, 5000)) {
+            a.generate(2, 1);
+            b.generate(3, 1);
+            fleet.addNode("a", "", "", a.getUri());
+            fleet.addNode("b", "", "", b.getUri());
+            FleetResult<SessionStatsResponseArguments> both = fleet.sessionStats().get(5, TimeUnit.SECONDS);
+            fleet.addNode("b", "", "", "http://127.0.0.1:" + freePort() + "/transmission/rpc");
+            FleetResult<SessionStatsResponseArguments> onlyA = fleet.sessionStats().get(5, TimeUnit.SECONDS);
+
+            SessionStatsAggregator aggregator = new SessionStatsAggregator(fleet, 1000, 10000);
+            aggregator.record(0, both);
+            assertEquals(new HashSet<>(Arrays.asList("a", "b")), aggregator.getNodes());
+            assertEquals(5, aggregator.getTotal(SessionStatsAggregator.Metric.TORRENTS));
+
+            //b keeps its last sample while it is inside the window
+            aggregator.record(5000, onlyA);
+            assertEquals(1, aggregator.getLastFailures());
+            assertEquals(5, aggregator.getTotal(SessionStatsAggregator.Metric.TORRENTS));
+
+            aggregator.record(10001, onlyA);
+            assertEquals(Collections.singleton("a"), aggregator.getNodes());
+            assertEquals(2, aggregator.getTotal(SessionStatsAggregator.Metric.TORRENTS));
+            //the round at 0 is out of the window too
+            assertEquals(2, aggregator.getAverage(SessionStatsAggregator.Metric.TORRENTS), 0);
+        }
+    }
+
+    @Test
+    public void emptyAggregator() throws Exception {
+        try (TransmissionFleetClient fleet = new TransmissionFleetClient(1, 1000)) {
+            SessionStatsAggregator aggregator = new SessionStatsAggregator(fleet, 1000, 10000);
+
+            assertEquals(Collections.emptySet(), aggregator.getNodes());
+            assertEquals(0, aggregator.getTotal(SessionStatsAggregator.Metric.DOWNLOAD_SPEED));
+            assertEquals(0, aggregator.getAverage(SessionStatsAggregator.Metric.DOWNLOAD_SPEED), 0);
+            assertEquals(0, aggregator.getPercentile("a", SessionStatsAggregator.Metric.DOWNLOAD_SPEED, 50));
+        }
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
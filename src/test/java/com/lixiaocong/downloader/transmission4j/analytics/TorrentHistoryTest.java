@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.analytics;
+
+import com.lixiaocong.downloader.transmission4j.response.Torrent;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TorrentHistoryTest {
+    @Test
+    public void averageCoversOnlyTheLastSamples() {
+        TorrentHistory history = new TorrentHistory(3);
+        for (int i = 1; i <= 5; i++)
+            history.record(i * 1000, torrent(1, i * 100, 0.1 * i));
+
+        assertEquals(3, history.getSampleCount(1));
+        assertEquals(500, history.getAverageRateDownload(1, 1), 0);
+        assertEquals(400, history.getAverageRateDownload(1, 3), 0);
+        assertEquals(400, history.getAverageRateDownload(1, 10), 0);
+        assertEquals(0, history.getAverageRateDownload(2, 3), 0);
+    }
+
+    @Test
+    public void removedSlotIsReusedWithoutOldSamples() {
+        TorrentHistory history = new TorrentHistory(4);
+        history.record(1000, torrent(1, 100, 0.1));
+        history.record(2000, torrent(1, 100, 0.2));
+        history.remove(1);
+        history.record(3000, torrent(2, 300, 0.5));
+
+        assertEquals(1, history.size());
+        assertEquals(0, history.getSampleCount(1));
+        assertEquals(1, history.getSampleCount(2));
+        assertEquals(300, history.getAverageRateDownload(2, 4), 0);
+    }
+
+    @Test
+    public void etaExtrapolatesTheProgressOfTheWindow() {
+        TorrentHistory history = new TorrentHistory(8);
+        history.record(0, torrent(1, 100, 0.25));
+        history.record(10000, torrent(1, 100, 0.5));
+        history.record(30000, torrent(1, 100, 0.75));
+
+        //0.5 in 30 seconds, 0.25 left
+        assertEquals(15, history.getEta(1, 3));
+        //0.25 in the last 20 seconds
+        assertEquals(20, history.getEta(1, 2));
+    }
+
+    @Test
+    public void etaWithoutProgress() {
+        TorrentHistory history = new TorrentHistory(8);
+        history.record(0, torrent(1, 0, 0.5));
+        history.record(1000, torrent(1, 0, 0.5));
+        history.record(0, torrent(2, 0, 1));
+
+        assertEquals(-1, history.getEta(1, 2));
+        assertEquals(-1, history.getEta(1, 1));
+        assertEquals(-1, history.getEta(1, 0));
+        assertEquals(-1, history.getEta(1, -1));
+        assertEquals(-1, history.getEta(3, 2));
+        assertEquals(0, history.getEta(2, 2));
+    }
+
+    @Test
+    public void stalledNeedsAFullWindowWithoutProgress() {
+        TorrentHistory history = new TorrentHistory(8);
+        history.record(0, torrent(1, 100, 0.5));
+        history.record(1000, torrent(1, 0, 0.5));
+        history.record(2000, torrent(1, 0, 0.5));
+
+        assertTrue(history.isStalled(1, 2));
+        assertFalse(history.isStalled(1, 3));
+        assertFalse(history.isStalled(1, 4));
+        assertFalse(history.isStalled(1, 0));
+
+        history.record(3000, torrent(1, 0, 0.6));
+        assertFalse(history.isStalled(1, 2));
+    }
+
+    @Test
+    public void finishedTorrentIsNotStalled() {
+        TorrentHistory history = new TorrentHistory(8);
+        history.record(0, torrent(1, 0, 1));
+        history.record(1000, torrent(1, 0, 1));
+
+        assertFalse(history.isStalled(1, 2));
+    }
+
+    private static Torrent torrent(long id, long rateDownload, double percentDone) {
+        Torrent torrent = new Torrent();
+        torrent.setId(id);
+        torrent.setRateDownload(rateDownload);
+        torrent.setPercentDone(percentDone);
+        return torrent;
+    }
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.batch;
+
+import com.lixiaocong.downloader.transmission4j.TransmissionClient;
+import com.lixiaocong.downloader.transmission4j.TransmissionClientBuilder;
+import com.lixiaocong.downloader.transmission4j.fake.FakeTransmissionServer;
+import com.lixiaocong.downloader.transmission4j.response.TorrentAddResponse;
+import com.lixiaocong.downloader.transmission4j.sync.TorrentHashIndex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TorrentImporterTest {
+    private static final String HASH = "f76a6c7ad2e7e6c5255b7af7252ef03806fddc0c";
+
+    private FakeTransmissionServer server;
+    private TransmissionClient client;
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeTransmissionServer(null, null);
+        client = new TransmissionClientBuilder(server.getUri()).credentials("", "").maxConnections(8).build();
+        directory = Files.createTempDirectory("torrents");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        server.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void duplicateAddReturnsTheKnownTorrent() throws Exception {
+        Path torrent = torrent("a.torrent");
+        assertFalse(client.addByMetainfo(torrent).getArguments().isDuplicate());
+
+        TorrentAddResponse response = client.addByMetainfo(torrent);
+        assertTrue(response.getArguments().isDuplicate());
+        assertEquals(HASH, response.getArguments().getTorrent().getHashString());
+        assertEquals(1, server.getTorrents().size());
+    }
+
+    @Test(timeout = 10000)
+    public void everyFileEndsUpInTheReport() throws Exception {
+        torrent("a.torrent");
+        Files.createDirectory(directory.resolve("sub"));
+        torrent("sub/b.torrent");
+        Files.write(directory.resolve("other.torrent"), "not bencoded".getBytes(StandardCharsets.UTF_8));
+        Files.write(directory.resolve("notes.txt"), "ignored".getBytes(StandardCharsets.UTF_8));
+
+        try (TorrentImporter importer = new TorrentImporter(client, 1)) {
+            ImportReport report = importer.importDirectory(directory);
+
+            assertEquals(3, report.getResults().size());
+            //the fake takes anything as metainfo, only a second copy of the same torrent is a duplicate
+            assertEquals(2, report.getAdded());
+            assertEquals(1, report.getDuplicates());
+            assertEquals(0, report.getFailed());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void knownHashesAreNotUploaded() throws Exception {
+        torrent("a.torrent");
+        torrent("b.torrent");
+        torrent("c.torrent");
+        Files.write(directory.resolve("broken.torrent"), "not bencoded".getBytes(StandardCharsets.UTF_8));
+        TorrentHashIndex index = new TorrentHashIndex(client);
+
+        try (TorrentImporter importer = new TorrentImporter(client, 4)) {
+            importer.setHashIndex(index);
+            ImportReport report = importer.importDirectory(directory);
+
+            assertEquals(1, report.getAdded());
+            assertEquals(2, report.getSkipped());
+            assertEquals(1, report.getFailed());
+            assertEquals(1, server.getRequestCount("torrent-add"));
+            assertTrue(index.contains(HASH));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void closeEndsARunningImport() throws Exception {
+        for (int i = 0; i < 50; i++)
+            Files.write(directory.resolve(i + ".torrent"), ("torrent " + i).getBytes(StandardCharsets.UTF_8));
+        server.setLatency(20, 0);
+        TorrentImporter importer = new TorrentImporter(client, 4);
+        CountDownLatch first = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<ImportReport> running = executor.submit(() -> importer.importDirectory(directory, result -> first.countDown()));
+            first.await();
+            importer.close();
+            ImportReport report = running.get(5, TimeUnit.SECONDS);
+
+            assertEquals(50, report.getResults().size());
+            assertTrue(report.getFailed() > 0);
+            assertEquals(50, report.getAdded() + report.getFailed());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void failingProgressDoesNotStopTheImport() throws Exception {
+        torrent("a.torrent");
+        Files.write(directory.resolve("b.torrent"), "b".getBytes(StandardCharsets.UTF_8));
+
+        try (TorrentImporter importer = new TorrentImporter(client, 2)) {
+            ImportReport report = importer.importDirectory(directory, result -> {
+                throw new IllegalStateException("progress failed");
+            });
+
+            assertEquals(2, report.getAdded());
+        }
+    }
+
+    private Path torrent(String name) throws Exception {
+        return Files.copy(Paths.get(getClass().getResource("/test.torrent").toURI()), directory.resolve(name));
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.batch;
+
+import com.lixiaocong.downloader.transmission4j.TransmissionClient;
+import com.lixiaocong.downloader.transmission4j.TransmissionClientBuilder;
+import com.lixiaocong.downloader.transmission4j.fake.FakeTransmissionServer;
+import com.lixiaocong.downloader.transmission4j.request.TransmissionRequestMethod;
+import com.lixiaocong.downloader.transmission4j.response.Torrent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TransmissionBatcherTest {
+    private FakeTransmissionServer server;
+    private TransmissionClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeTransmissionServer(null, null);
+        server.generate(5, 1);
+        client = new TransmissionClientBuilder(server.getUri()).credentials("", "").maxConnections(4).build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Test(timeout = 10000)
+    public void getsWithinTheWindowShareOneRequest() throws Exception {
+        try (TransmissionBatcher batcher = new TransmissionBatcher(client, 100, 2)) {
+            List<CompletableFuture<Torrent>> futures = new ArrayList<>();
+            for (int id = 1; id <= 5; id++)
+                futures.add(batcher.get(id));
+            CompletableFuture<Torrent> missing = batcher.get(99);
+
+            for (int i = 0; i < futures.size(); i++)
+                assertEquals(i + 1, futures.get(i).get(5, TimeUnit.SECONDS).getId());
+            assertNull(missing.get(5, TimeUnit.SECONDS));
+            assertEquals(1, server.getRequestCount(TransmissionRequestMethod.TORRENT_GET));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void laterCallSupersedesTheQueuedOne() throws Exception {
+        try (TransmissionBatcher batcher = new TransmissionBatcher(client, 100, 2)) {
+            CompletableFuture<Void> start = batcher.start(1);
+            CompletableFuture<Void> stop = batcher.stop(1);
+
+            stop.get(5, TimeUnit.SECONDS);
+            start.get(5, TimeUnit.SECONDS);
+            assertEquals(0, server.getRequestCount(TransmissionRequestMethod.TORRENT_START));
+            assertEquals(1, server.getRequestCount(TransmissionRequestMethod.TORRENT_STOP));
+            assertEquals(0, server.getTorrents().get(1L).getStatus());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void batchesAreSentInFlushOrder() throws Exception {
+        server.setLatency(0, 20);
+        try (TransmissionBatcher batcher = new TransmissionBatcher(client, 1000, 4)) {
+            CompletableFuture<Void> last = null;
+            for (int i = 0; i < 10; i++) {
+                batcher.stop(1);
+                batcher.flush();
+                last = batcher.start(1);
+                batcher.flush();
+            }
+
+            last.get(5, TimeUnit.SECONDS);
+            assertNotEquals(0, server.getTorrents().get(1L).getStatus());
+            assertEquals(10, server.getRequestCount(TransmissionRequestMethod.TORRENT_START));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void closeSendsPendingCallsAndRejectsNewOnes() throws Exception {
+        TransmissionBatcher batcher = new TransmissionBatcher(client, 60000, 2);
+        CompletableFuture<Torrent> pending = batcher.get(1);
+        batcher.close();
+
+        assertEquals(1, pending.get(5, TimeUnit.SECONDS).getId());
+        try {
+            batcher.stop(1).get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+}
@@ -0,0 +1,677 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.fake;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.lixiaocong.downloader.transmission4j.metainfo.Metainfo;
+import com.lixiaocong.downloader.transmission4j.request.TorrentGetRequest;
+import com.lixiaocong.downloader.transmission4j.request.TransmissionRequestMethod;
+import com.lixiaocong.downloader.transmission4j.response.Torrent;
+import com.lixiaocong.downloader.transmission4j.response.TorrentFile;
+import com.lixiaocong.downloader.transmission4j.utils.JsonUtil;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-process stand-in for transmission-daemon, used to load test and benchmark clients without a real daemon
+ * implements the methods of TransmissionRequestMethod, the 409 session id handshake and basic auth,
+ * and can inject latency and errors into every request
+ * run it with -Dsun.net.httpserver.nodelay=true, otherwise the JDK server writes headers and body apart
+ * and every response waits for a delayed ACK
+ */
+public class FakeTransmissionServer implements Closeable {
+    public static final String PATH = "/transmission/rpc";
+    private static final String SESSION_HEADER = "X-Transmission-Session-Id";
+    private static final long RECENTLY_ACTIVE_SECONDS = 60;
+    private static Log log = LogFactory.getLog(FakeTransmissionServer.class.getName());
+
+    private final String authorization;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private final Map<Long, Torrent> torrents = new ConcurrentSkipListMap<>();
+    private final Map<Long, Long> removed = new ConcurrentHashMap<>();     //id -> removal time in seconds
+    private final Map<String, Long> hashes = new ConcurrentHashMap<>();    //metainfo hash -> id
+    private final Map<String, Object> session = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> requestCounts = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final AtomicLong uploadedBytes = new AtomicLong();
+    private final AtomicLong downloadedBytes = new AtomicLong();
+    private final AtomicLong filesAdded = new AtomicLong();
+    private final long started = System.currentTimeMillis();
+
+    private volatile String sessionId = newSessionId();
+    private volatile long latency;
+    private volatile long latencyJitter;
+    private volatile double errorRate;
+    private volatile double sessionRotationRate;
+
+    /**
+     * listen on a random local port, null username disables basic auth
+     */
+    public FakeTransmissionServer(String username, String password) throws IOException {
+        this(username, password, 0, 8);
+    }
+
+    public FakeTransmissionServer(String username, String password, int port, int threads) throws IOException {
+        this.authorization = username == null ? null : "Basic " + Base64.getEncoder().encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "fake-transmission");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(PATH, this::handle);
+        server.start();
+        log.info("fake transmission listening on " + getUri());
+    }
+
+    public String getUri() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + PATH;
+    }
+
+    /**
+     * add synthetic torrents, each one with the given number of files
+     */
+    public void generate(int torrents, int files) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.currentTimeMillis() / 1000;
+        for (int i = 0; i < torrents; i++) {
+            long id = nextId.getAndIncrement();
+            Torrent torrent = newTorrent(id, "torrent-" + id, now);
+            List<TorrentFile> list = new ArrayList<>(files);
+            long totalSize = 0;
+            for (int f = 0; f < files; f++) {
+                TorrentFile file = new TorrentFile();
+                file.setName(torrent.getName() + "/file-" + f + ".bin");
+                file.setLength(random.nextLong(1024, 1024L * 1024 * 1024));
+                totalSize += file.getLength();
+                list.add(file);
+            }
+            double percentDone = random.nextInt(101) / 100.0;
+            for (TorrentFile file : list)
+                file.setBytesCompleted((long) (file.getLength() * percentDone));
+            torrent.setFiles(list);
+            torrent.setTotalSize(totalSize);
+            //real torrents keep the piece count in the low thousands by growing the piece size
+            long pieceSize = 16 * 1024;
+            while (totalSize / pieceSize > 2048)
+                pieceSize <<= 1;
+            torrent.setPieceSize(pieceSize);
+            torrent.setPieceCount((totalSize + pieceSize - 1) / pieceSize);
+            torrent.setPercentDone(percentDone);
+            torrent.setDownloadedEver((long) (totalSize * percentDone));
+            torrent.setFinished(percentDone >= 1);
+            torrent.setStatus(percentDone >= 1 ? 6 : random.nextInt(5));
+            if (torrent.getStatus() == 4)
+                torrent.setRateDownload(random.nextLong(1024, 10L * 1024 * 1024));
+            if (torrent.getStatus() == 4 || torrent.getStatus() == 6)
+                torrent.setRateUpload(random.nextLong(0, 1024L * 1024));
+            torrent.setUploadRatio(random.nextDouble() * 2);
+            this.torrents.put(id, torrent);
+            hashes.put(torrent.getHashString(), id);
+        }
+    }
+
+    /**
+     * let seconds pass for the active torrents, their progress grows with their download rate
+     */
+    public void advance(long seconds) {
+        long now = System.currentTimeMillis() / 1000;
+        for (Torrent torrent : torrents.values()) {
+            synchronized (torrent) {
+                if (torrent.getStatus() != 4 && torrent.getStatus() != 6)
+                    continue;
+                long downloaded = Math.min(torrent.getTotalSize(), torrent.getDownloadedEver() + torrent.getRateDownload() * seconds);
+                downloadedBytes.addAndGet(downloaded - torrent.getDownloadedEver());
+                uploadedBytes.addAndGet(torrent.getRateUpload() * seconds);
+                torrent.setDownloadedEver(downloaded);
+                torrent.setPercentDone(torrent.getTotalSize() == 0 ? 1 : (double) downloaded / torrent.getTotalSize());
+                torrent.setActivityDate(now);
+                if (torrent.getStatus() == 4) {
+                    torrent.setSecondsDownloading(torrent.getSecondsDownloading() + seconds);
+                    if (downloaded == torrent.getTotalSize()) {
+                        torrent.setStatus(6);
+                        torrent.setRateDownload(0);
+                        torrent.setDoneDate(now);
+                    }
+                } else {
+                    torrent.setSecondsSeeding(torrent.getSecondsSeeding() + seconds);
+                }
+            }
+        }
+    }
+
+    public Map<Long, Torrent> getTorrents() {
+        return Collections.unmodifiableMap(torrents);
+    }
+
+    /**
+     * fixed delay plus a random jitter added to every request, in milliseconds
+     */
+    public void setLatency(long latency, long jitter) {
+        this.latency = latency;
+        this.latencyJitter = jitter;
+    }
+
+    /**
+     * probability of answering a request with 500
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * probability of changing the session id before a request, as a daemon restart would
+     */
+    public void setSessionRotationRate(double sessionRotationRate) {
+        this.sessionRotationRate = sessionRotationRate;
+    }
+
+    public void rotateSessionId() {
+        sessionId = newSessionId();
+    }
+
+    /**
+     * requests with a valid session id received for method
+     */
+    public long getRequestCount(String method) {
+        AtomicLong count = requestCounts.get(method);
+        return count == null ? 0 : count.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            //read the whole body first, answering early makes the JDK server drop the keep-alive connection
+            byte[] requestBody = read(exchange.getRequestBody());
+            delay();
+            if (authorization != null && !authorization.equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                send(exchange, 401, null);
+                return;
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (sessionRotationRate > 0 && random.nextDouble() < sessionRotationRate)
+                rotateSessionId();
+            String current = sessionId;
+            if (!current.equals(exchange.getRequestHeaders().getFirst(SESSION_HEADER))) {
+                exchange.getResponseHeaders().add(SESSION_HEADER, current);
+                send(exchange, 409, null);
+                return;
+            }
+            if (errorRate > 0 && random.nextDouble() < errorRate) {
+                send(exchange, 500, null);
+                return;
+            }
+
+            JsonNode request = JsonUtil.getObjectMapper().readTree(requestBody);
+            String method = request.path("method").asText();
+            requestCounts.computeIfAbsent(method, k -> new AtomicLong()).incrementAndGet();
+
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            try (JsonGenerator generator = JsonUtil.getObjectMapper().getFactory().createGenerator(body)) {
+                generator.writeStartObject();
+                generator.writeObjectFieldStart("arguments");
+                String result = execute(method, request.path("arguments"), generator);
+                generator.writeEndObject();
+                generator.writeStringField("result", result);
+                if (request.has("tag"))
+                    generator.writeNumberField("tag", request.get("tag").asLong());
+                generator.writeEndObject();
+            }
+            String encoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            byte[] bytes = body.toByteArray();
+            if (encoding != null && encoding.contains("gzip")) {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                    gzip.write(bytes);
+                }
+                bytes = compressed.toByteArray();
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json; charset=UTF-8");
+            send(exchange, 200, bytes);
+        } catch (IOException | RuntimeException e) {
+            log.warn("fake transmission request failed:", e);
+            send(exchange, 500, null);
+        }
+    }
+
+    private String execute(String method, JsonNode arguments, JsonGenerator generator) throws IOException {
+        switch (method) {
+            case TransmissionRequestMethod.TORRENT_GET:
+                torrentGet(arguments, generator);
+                return "success";
+            case TransmissionRequestMethod.TORRENT_START:
+                for (Torrent torrent : select(arguments.get("ids"))) {
+                    synchronized (torrent) {
+                        torrent.setStatus(torrent.getPercentDone() >= 1 ? 6 : 4);
+                        torrent.setActivityDate(System.currentTimeMillis() / 1000);
+                    }
+                }
+                return "success";
+            case TransmissionRequestMethod.TORRENT_STOP:
+                for (Torrent torrent : select(arguments.get("ids"))) {
+                    synchronized (torrent) {
+                        torrent.setStatus(0);
+                        torrent.setRateDownload(0);
+                        torrent.setRateUpload(0);
+                        torrent.setActivityDate(System.currentTimeMillis() / 1000);
+                    }
+                }
+                return "success";
+            case TransmissionRequestMethod.TORRENT_REMOVE:
+                long now = System.currentTimeMillis() / 1000;
+                for (Torrent torrent : select(arguments.get("ids"))) {
+                    torrents.remove(torrent.getId());
+                    removed.put(torrent.getId(), now);
+                    hashes.values().remove(torrent.getId());
+                }
+                return "success";
+            case TransmissionRequestMethod.TORRENT_ADD:
+                return torrentAdd(arguments, generator);
+            case TransmissionRequestMethod.SESSION_STATS:
+                sessionStats(generator);
+                return "success";
+            case TransmissionRequestMethod.SESSION_SET:
+                Iterator<Map.Entry<String, JsonNode>> fields = arguments.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    Object value = JsonUtil.getObjectMapper().treeToValue(field.getValue(), Object.class);
+                    if (value != null)
+                        session.put(field.getKey(), value);
+                }
+                return "success";
+            case TransmissionRequestMethod.SESSION_GET:
+                for (Map.Entry<String, Object> entry : session.entrySet()) {
+                    generator.writeFieldName(entry.getKey());
+                    generator.writeObject(entry.getValue());
+                }
+                generator.writeStringField("version", "2.92 (fake)");
+                generator.writeNumberField("rpc-version", 15);
+                return "success";
+            default:
+                return "method name not recognized";
+        }
+    }
+
+    private Collection<Torrent> select(JsonNode ids) {
+        if (ids == null || ids.isNull())
+            return torrents.values();
+        List<Torrent> selected = new ArrayList<>();
+        if (ids.isNumber()) {
+            Torrent torrent = torrents.get(ids.asLong());
+            if (torrent != null)
+                selected.add(torrent);
+        } else if (ids.isArray()) {
+            for (JsonNode id : ids) {
+                Torrent torrent = torrents.get(id.asLong());
+                if (torrent != null)
+                    selected.add(torrent);
+            }
+        } else if (TorrentGetRequest.RECENTLY_ACTIVE.equals(ids.asText())) {
+            long since = System.currentTimeMillis() / 1000 - RECENTLY_ACTIVE_SECONDS;
+            for (Torrent torrent : torrents.values()) {
+                if (torrent.getActivityDate() >= since)
+                    selected.add(torrent);
+            }
+        }
+        return selected;
+    }
+
+    private void torrentGet(JsonNode arguments, JsonGenerator generator) throws IOException {
+        List<String> fields = new ArrayList<>();
+        for (JsonNode field : arguments.path("fields"))
+            fields.add(field.asText());
+
+        JsonNode ids = arguments.get("ids");
+        generator.writeArrayFieldStart("torrents");
+        for (Torrent torrent : select(ids)) {
+            synchronized (torrent) {
+                generator.writeStartObject();
+                for (String field : fields)
+                    writeField(generator, torrent, field);
+                generator.writeEndObject();
+            }
+        }
+        generator.writeEndArray();
+
+        if (ids != null && TorrentGetRequest.RECENTLY_ACTIVE.equals(ids.asText())) {
+            long since = System.currentTimeMillis() / 1000 - RECENTLY_ACTIVE_SECONDS;
+            generator.writeArrayFieldStart("removed");
+            for (Map.Entry<Long, Long> entry : removed.entrySet()) {
+                if (entry.getValue() >= since)
+                    generator.writeNumber(entry.getKey());
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    private static void writeField(JsonGenerator generator, Torrent torrent, String field) throws IOException {
+        switch (field) {
+            case "id":
+                generator.writeNumberField(field, torrent.getId());
+                break;
+            case "name":
+                generator.writeStringField(field, torrent.getName());
+                break;
+            case "isFinished":
+                generator.writeBooleanField(field, torrent.isFinished());
+                break;
+            case "downloadDir":
+                generator.writeStringField(field, torrent.getDownloadDir());
+                break;
+            case "activityDate":
+                generator.writeNumberField(field, torrent.getActivityDate());
+                break;
+            case "addedDate":
+                generator.writeNumberField(field, torrent.getAddedDate());
+                break;
+            case "doneDate":
+                generator.writeNumberField(field, torrent.getDoneDate());
+                break;
+            case "dateCreated":
+                generator.writeNumberField(field, torrent.getDateCreated());
+                break;
+            case "bandwidthPriority":
+                generator.writeNumberField(field, torrent.getBandwidthPriority());
+                break;
+            case "creator":
+                generator.writeStringField(field, torrent.getCreator());
+                break;
+            case "desiredAvailable":
+                generator.writeNumberField(field, torrent.getDesiredAvailable());
+                break;
+            case "files":
+                generator.writeArrayFieldStart(field);
+                if (torrent.getFiles() != null) {
+                    for (TorrentFile file : torrent.getFiles()) {
+                        generator.writeStartObject();
+                        generator.writeNumberField("bytesCompleted", file.getBytesCompleted());
+                        generator.writeNumberField("length", file.getLength());
+                        generator.writeStringField("name", file.getName());
+                        generator.writeEndObject();
+                    }
+                }
+                generator.writeEndArray();
+                break;
+            case "isStalled":
+                generator.writeBooleanField(field, torrent.isStalled());
+                break;
+            case "magnetLink":
+                generator.writeStringField(field, torrent.getMagnetLink());
+                break;
+            case "rateDownload":
+                generator.writeNumberField(field, torrent.getRateDownload());
+                break;
+            case "rateUpload":
+                generator.writeNumberField(field, torrent.getRateUpload());
+                break;
+            case "secondsDownloading":
+                generator.writeNumberField(field, torrent.getSecondsDownloading());
+                break;
+            case "secondsSeeding":
+                generator.writeNumberField(field, torrent.getSecondsSeeding());
+                break;
+            case "totalSize":
+                generator.writeNumberField(field, torrent.getTotalSize());
+                break;
+            case "uploadRatio":
+                generator.writeNumberField(field, torrent.getUploadRatio());
+                break;
+            case "downloadedEver":
+                generator.writeNumberField(field, torrent.getDownloadedEver());
+                break;
+            case "percentDone":
+                generator.writeNumberField(field, torrent.getPercentDone());
+                break;
+            case "status":
+                generator.writeNumberField(field, torrent.getStatus());
+                break;
+            case "pieces":
+                generator.writeStringField(field, pieces(torrent));
+                break;
+            case "pieceCount":
+                generator.writeNumberField(field, torrent.getPieceCount());
+                break;
+            case "pieceSize":
+                generator.writeNumberField(field, torrent.getPieceSize());
+                break;
+            case "hashString":
+                generator.writeStringField(field, torrent.getHashString());
+                break;
+            case "fileStats":
+                generator.writeArrayFieldStart(field);
+                if (torrent.getFiles() != null) {
+                    for (TorrentFile file : torrent.getFiles()) {
+                        generator.writeStartObject();
+                        generator.writeNumberField("bytesCompleted", file.getBytesCompleted());
+                        generator.writeBooleanField("wanted", true);
+                        generator.writeNumberField("priority", 0);
+                        generator.writeEndObject();
+                    }
+                }
+                generator.writeEndArray();
+                break;
+            default:
+                //transmission silently skips unknown fields
+        }
+    }
+
+    /**
+     * the fake downloads pieces in order, the first percentDone of them are set
+     */
+    private static String pieces(Torrent torrent) {
+        int pieceCount = (int) torrent.getPieceCount();
+        byte[] bitfield = new byte[(pieceCount + 7) / 8];
+        int have = (int) Math.min((long) (torrent.getPercentDone() * pieceCount), pieceCount);
+        for (int piece = 0; piece < have; piece++)
+            bitfield[piece >>> 3] |= 0x80 >>> (piece & 7);
+        return Base64.getEncoder().encodeToString(bitfield);
+    }
+
+    private String torrentAdd(JsonNode arguments, JsonGenerator generator) throws IOException {
+        String metainfo = arguments.path("metainfo").asText(null);
+        if (metainfo == null)
+            return "no metainfo";
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(metainfo);
+        } catch (IllegalArgumentException e) {
+            return "invalid or corrupt torrent file";
+        }
+
+        //real metainfo is keyed by its info hash like transmission does, anything else by the hash of its bytes
+        Metainfo parsed = null;
+        try {
+            parsed = Metainfo.parse(bytes);
+        } catch (IllegalArgumentException e) {
+            //not a torrent, the fake accepts it anyway
+        }
+        String hash = parsed != null ? parsed.getInfoHash() : sha1(bytes);
+        String name = parsed != null ? parsed.getName() : "added-" + hash.substring(0, 8);
+        //the id is only taken once the hash is claimed, concurrent adds never share one
+        long[] added = new long[1];
+        long existing = hashes.computeIfAbsent(hash, key -> added[0] = nextId.getAndIncrement());
+        if (added[0] == 0) {
+            Torrent duplicate = torrents.get(existing);
+            generator.writeObjectFieldStart("torrent-duplicate");
+            generator.writeNumberField("id", existing);
+            generator.writeStringField("name", duplicate == null ? null : duplicate.getName());
+            generator.writeStringField("hashString", hash);
+            generator.writeEndObject();
+            return "duplicate torrent";
+        }
+
+        Torrent torrent = newTorrent(added[0], name, System.currentTimeMillis() / 1000);
+        torrent.setHashString(hash);
+        torrent.setFiles(new ArrayList<>());
+        if (parsed != null) {
+            for (TorrentFile file : parsed.getFiles()) {
+                TorrentFile copy = new TorrentFile();
+                copy.setName(file.getName());
+                copy.setLength(file.getLength());
+                torrent.getFiles().add(copy);
+            }
+            torrent.setTotalSize(parsed.getTotalSize());
+        }
+        torrent.setStatus(arguments.path("paused").asBoolean(false) ? 0 : 4);
+        torrents.put(torrent.getId(), torrent);
+        filesAdded.incrementAndGet();
+        generator.writeObjectFieldStart("torrent-added");
+        generator.writeNumberField("id", torrent.getId());
+        generator.writeStringField("name", torrent.getName());
+        generator.writeStringField("hashString", hash);
+        generator.writeEndObject();
+        return "success";
+    }
+
+    private void sessionStats(JsonGenerator generator) throws IOException {
+        long active = 0, paused = 0, downloadSpeed = 0, uploadSpeed = 0;
+        for (Torrent torrent : torrents.values()) {
+            if (torrent.getStatus() == 0)
+                paused++;
+            if (torrent.getStatus() == 4 || torrent.getStatus() == 6)
+                active++;
+            downloadSpeed += torrent.getRateDownload();
+            uploadSpeed += torrent.getRateUpload();
+        }
+        generator.writeNumberField("activeTorrentCount", active);
+        generator.writeNumberField("downloadSpeed", downloadSpeed);
+        generator.writeNumberField("pausedTorrentCount", paused);
+        generator.writeNumberField("torrentCount", torrents.size());
+        generator.writeNumberField("uploadSpeed", uploadSpeed);
+        for (String name : new String[]{"cumulative-stats", "current-stats"}) {
+            generator.writeObjectFieldStart(name);
+            generator.writeNumberField("downloadedBytes", downloadedBytes.get());
+            generator.writeNumberField("filesAdded", filesAdded.get());
+            generator.writeNumberField("secondsActive", (System.currentTimeMillis() - started) / 1000);
+            generator.writeNumberField("sessionCount", 1);
+            generator.writeNumberField("uploadedBytes", uploadedBytes.get());
+            generator.writeEndObject();
+        }
+    }
+
+    private static Torrent newTorrent(long id, String name, long now) {
+        Torrent torrent = new Torrent();
+        torrent.setId(id);
+        torrent.setName(name);
+        torrent.setDownloadDir("/var/lib/transmission-daemon/downloads");
+        torrent.setAddedDate(now);
+        torrent.setActivityDate(now);
+        torrent.setDateCreated(now);
+        torrent.setCreator("transmission4j fake");
+        torrent.setHashString(String.format("%040x", id));
+        torrent.setMagnetLink("magnet:?xt=urn:btih:" + torrent.getHashString() + "&dn=" + name);
+        return torrent;
+    }
+
+    private void delay() {
+        long millis = latency;
+        if (latencyJitter > 0)
+            millis += ThreadLocalRandom.current().nextLong(latencyJitter + 1);
+        if (millis <= 0)
+            return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) != -1)
+            out.write(buffer, 0, n);
+        return out.toByteArray();
+    }
+
+    private static void send(HttpExchange exchange, int code, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(code, body == null ? -1 : body.length);
+        if (body != null) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+        exchange.close();
+    }
+
+    private static String sha1(byte[] bytes) {
+        try {
+            StringBuilder builder = new StringBuilder(40);
+            for (byte b : MessageDigest.getInstance("SHA-1").digest(bytes))
+                builder.append(String.format("%02x", b));
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String newSessionId() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.fleet;
+
+import com.lixiaocong.downloader.transmission4j.fake.FakeTransmissionServer;
+import com.lixiaocong.downloader.transmission4j.response.SessionStatsResponseArguments;
+import org.junit.Test;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TransmissionFleetClientTest {
+    @Test(timeout = 10000)
+    public void everyNodeKeepsItsOwnSession() throws Exception {
+        List<FakeTransmissionServer> servers = new ArrayList<>();
+        try (TransmissionFleetClient fleet = new TransmissionFleetClient(2, 5000)) {
+            for (int i = 0; i < 3; i++) {
+                FakeTransmissionServer server = new FakeTransmissionServer(null, null);
+                server.generate(i + 1, 1);
+                servers.add(server);
+                fleet.addNode("node" + i, "", "", server.getUri());
+            }
+            FleetResult<SessionStatsResponseArguments> result = fleet.sessionStats().get(5, TimeUnit.SECONDS);
+
+            assertTrue(result.isComplete());
+            for (int i = 0; i < 3; i++)
+                assertEquals(i + 1, result.getResults().get("node" + i).getTorrentCount());
+        } finally {
+            for (FakeTransmissionServer server : servers)
+                server.close();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void failedAndSlowNodesAreReportedApart() throws Exception {
+        try (FakeTransmissionServer server = new FakeTransmissionServer(null, null);
+             FakeTransmissionServer slow = new FakeTransmissionServer(null, null);
+             TransmissionFleetClient fleet = new TransmissionFleetClient(3, 200)) {
+            slow.setLatency(2000, 0);
+            fleet.addNode("up", "", "", server.getUri());
+            fleet.addNode("slow", "", "", slow.getUri());
+            fleet.addNode("down", "", "", "http://127.0.0.1:" + freePort() + "/transmission/rpc");
+            FleetResult<SessionStatsResponseArguments> result = fleet.sessionStats().get(5, TimeUnit.SECONDS);
+
+            assertEquals(1, result.getResults().size());
+            assertTrue(result.getResults().containsKey("up"));
+            assertEquals(2, result.getFailures().size());
+            assertEquals(TimeoutException.class, result.getFailures().get("slow").getClass());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void nullResultsComplete() throws Exception {
+        try (FakeTransmissionServer server = new FakeTransmissionServer(null, null);
+             TransmissionFleetClient fleet = new TransmissionFleetClient(1, 1000)) {
+            fleet.addNode("a", "", "", server.getUri());
+            fleet.addNode("b", "", "", server.getUri());
+            FleetResult<Object> result = fleet.fanOut(client -> CompletableFuture.completedFuture(null)).get(5, TimeUnit.SECONDS);
+
+            assertTrue(result.isComplete());
+            assertEquals(2, result.getResults().size());
+            assertNull(result.getResults().get("a"));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void nodesShareOneReactor() throws Exception {
+        try (FakeTransmissionServer server = new FakeTransmissionServer(null, null)) {
+            int before = dispatchers();
+            try (TransmissionFleetClient fleet = new TransmissionFleetClient(20, 5000)) {
+                for (int i = 0; i < 20; i++)
+                    fleet.addNode("node" + i, "", "", server.getUri());
+                assertTrue(fleet.sessionStats().get(5, TimeUnit.SECONDS).isComplete());
+
+                assertTrue(dispatchers() - before <= Runtime.getRuntime().availableProcessors());
+            }
+        }
+    }
+
+    private static int dispatchers() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("I/O dispatcher"))
+                count++;
+        }
+        return count;
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
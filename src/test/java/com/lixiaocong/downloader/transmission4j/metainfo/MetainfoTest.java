@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.metainfo;
+
+import com.lixiaocong.downloader.transmission4j.response.TorrentFile;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class MetainfoTest {
+    private static final String TEST_HASH = "f76a6c7ad2e7e6c5255b7af7252ef03806fddc0c";
+    private static final String TEST_NAME = "The.Walking.Dead.S07E11.720p.HDTV.x264-AVS.mkv";
+
+    @Test
+    public void readSingleFileTorrent() throws Exception {
+        Metainfo metainfo = Metainfo.read(testTorrent());
+
+        assertEquals(TEST_HASH, metainfo.getInfoHash());
+        assertEquals(TEST_NAME, metainfo.getName());
+        assertEquals(2278153543L, metainfo.getTotalSize());
+        assertEquals(1, metainfo.getFiles().size());
+        assertEquals(TEST_NAME, metainfo.getFiles().get(0).getName());
+        assertEquals(2278153543L, metainfo.getFiles().get(0).getLength());
+    }
+
+    @Test
+    public void parseLeavesBufferPositionAlone() throws Exception {
+        byte[] bytes = Files.readAllBytes(testTorrent());
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 3);
+        buffer.put(new byte[3]).put(bytes).flip().position(3);
+
+        assertEquals(TEST_HASH, Metainfo.parse(buffer).getInfoHash());
+        assertEquals(3, buffer.position());
+        assertEquals(TEST_HASH, Metainfo.parse(bytes).getInfoHash());
+    }
+
+    @Test
+    public void parseMultiFileTorrent() throws Exception {
+        byte[] info = bytes("d5:filesld6:lengthi3e4:pathl3:dir5:a.txteed6:lengthi5e4:pathl5:b.txteee"
+                + "4:name4:pack10:name.utf-84:pack12:piece lengthi16384e6:pieces20:01234567890123456789e");
+        byte[] torrent = concat(bytes("d8:announce10:http://x/a4:info"), info, bytes("e"));
+
+        Metainfo metainfo = Metainfo.parse(torrent);
+
+        assertEquals(sha1(info), metainfo.getInfoHash());
+        assertEquals("pack", metainfo.getName());
+        assertEquals(8, metainfo.getTotalSize());
+        List<TorrentFile> files = metainfo.getFiles();
+        assertEquals(2, files.size());
+        assertEquals("pack/dir/a.txt", files.get(0).getName());
+        assertEquals(3, files.get(0).getLength());
+        assertEquals("pack/b.txt", files.get(1).getName());
+        assertEquals(5, files.get(1).getLength());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsWhatIsNotADictionary() {
+        Metainfo.parse(bytes("l4:infoe"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTruncatedInput() throws Exception {
+        byte[] bytes = Files.readAllBytes(testTorrent());
+        byte[] truncated = new byte[bytes.length / 2];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+        Metainfo.parse(truncated);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMissingInfo() {
+        Metainfo.parse(bytes("d8:announce10:http://x/ae"));
+    }
+
+    private Path testTorrent() throws Exception {
+        return Paths.get(getClass().getResource("/test.torrent").toURI());
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] concat(byte[]... parts) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts)
+            out.write(part);
+        return out.toByteArray();
+    }
+
+    private static String sha1(byte[] bytes) throws Exception {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-1").digest(bytes))
+            hex.append(String.format("%02x", b));
+        return hex.toString();
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2016, lixiaocong <lxccs@iCloud.com>
+ * All rights reserved.
+ * <p>
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * <p>
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * <p>
+ * Neither the name of transmission4j nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.lixiaocong.downloader.transmission4j.sync;
+
+import com.lixiaocong.downloader.transmission4j.TransmissionClient;
+import com.lixiaocong.downloader.transmission4j.TransmissionClientBuilder;
+import com.lixiaocong.downloader.transmission4j.fake.FakeTransmissionServer;
+import com.lixiaocong.downloader.transmission4j.request.TorrentField;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.EnumSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TorrentDeltaSyncTest {
+    private FakeTransmissionServer server;
+    private TransmissionClient client;
+    private TorrentDeltaSync sync;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeTransmissionServer(null, null);
+        server.generate(5, 1);
+        client = new TransmissionClientBuilder(server.getUri()).credentials("", "").build();
+        sync = new TorrentDeltaSync(client, EnumSet.of(TorrentField.NAME, TorrentField.STATUS));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Test(timeout = 10000)
+    public void firstPollFetchesEverything() throws Exception {
+        TorrentDelta delta = sync.poll();
+
+        assertTrue(delta.isFull());
+        assertEquals(5, delta.getUpdated().size());
+        assertTrue(delta.getRemoved().isEmpty());
+        assertEquals(5, sync.getTorrents().size());
+        assertEquals("torrent-3", sync.getTorrent(3).getName());
+    }
+
+    @Test(timeout = 10000)
+    public void updatesAreMergedAndRemovedTorrentsDropped() throws Exception {
+        sync.poll();
+        client.stop(Collections.singletonList("1"));
+        client.remove(Collections.singletonList("2"));
+        TorrentDelta delta = sync.poll();
+
+        assertFalse(delta.isFull());
+        assertEquals(Collections.singletonList(2L), delta.getRemoved());
+        assertNull(sync.getTorrent(2));
+        assertEquals(0, sync.getTorrent(1).getStatus());
+        assertEquals(4, sync.getTorrents().size());
+    }
+
+    @Test(timeout = 10000)
+    public void fullPollAfterResetFindsRemovedTorrents() throws Exception {
+        sync.poll();
+        sync.reset();
+        client.remove(Collections.singletonList("4"));
+        TorrentDelta delta = sync.poll();
+
+        assertTrue(delta.isFull());
+        assertEquals(Collections.singletonList(4L), delta.getRemoved());
+        assertEquals(4, sync.getTorrents().size());
+    }
+}